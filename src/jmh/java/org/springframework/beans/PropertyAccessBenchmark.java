@@ -0,0 +1,85 @@
+package org.springframework.beans;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of simple, non-nested property access through BeanWrapperImpl
+ * with values that need no conversion. Run with the GC profiler by the
+ * jmhAllocationCheck task, which requires 0 B/op for each of them.
+ *
+ * @see BeanWrapperImpl#getPropertyValue(String)
+ * @see BeanWrapperImpl#setPropertyValue(String, Object)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyAccessBenchmark {
+
+    private BeanWrapperImpl beanWrapper;
+
+    private String name;
+
+    private Integer age;
+
+    @Setup
+    public void setUp() {
+        this.beanWrapper = new BeanWrapperImpl(new Person());
+        this.name = "Rod";
+        this.age = Integer.valueOf(35);
+        this.beanWrapper.setPropertyValue("name", this.name);
+        this.beanWrapper.setPropertyValue("age", this.age);
+    }
+
+    @Benchmark
+    public Object getStringProperty() {
+        return this.beanWrapper.getPropertyValue("name");
+    }
+
+    @Benchmark
+    public void setStringProperty() {
+        this.beanWrapper.setPropertyValue("name", this.name);
+    }
+
+    @Benchmark
+    public Object getWrapperProperty() {
+        return this.beanWrapper.getPropertyValue("age");
+    }
+
+    @Benchmark
+    public void setWrapperProperty() {
+        this.beanWrapper.setPropertyValue("age", this.age);
+    }
+
+
+    public static class Person {
+
+        private String name;
+
+        private Integer age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+    }
+
+}
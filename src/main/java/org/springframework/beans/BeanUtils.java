@@ -1,9 +1,11 @@
 package org.springframework.beans;
 
-import java.beans.PropertyDescriptor;
+import org.springframework.util.ClassCache;
+
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -11,6 +13,42 @@ import java.util.List;
  */
 public class BeanUtils {
 
+    /** Marker for classes without public no-arg constructor */
+    private static final Object NO_DEFAULT_CONSTRUCTOR = new Object();
+
+    /** Public no-arg constructor (or NO_DEFAULT_CONSTRUCTOR marker) of each class */
+    private static final ClassCache defaultConstructors = new ClassCache() {
+        protected Object computeValue(Class type) {
+            try {
+                return type.getConstructor(new Class[0]);
+            }
+            catch (NoSuchMethodException ex) {
+                return NO_DEFAULT_CONSTRUCTOR;
+            }
+        }
+    };
+
+    private static volatile InstantiationStrategy instantiationStrategy = new MethodHandleInstantiationStrategy();
+
+    /**
+     * Set the strategy to create all instances with.
+     * Default is a MethodHandleInstantiationStrategy.
+     * @param strategy the InstantiationStrategy to use
+     */
+    public static void setInstantiationStrategy(InstantiationStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("InstantiationStrategy must not be null");
+        }
+        instantiationStrategy = strategy;
+    }
+
+    /**
+     * Return the strategy that all instances get created with.
+     */
+    public static InstantiationStrategy getInstantiationStrategy() {
+        return instantiationStrategy;
+    }
+
     /**
      * Convenience method to instantiate a class using its no-arg constructor.
      * As this method doesn't try to load classes by name, it should avoid class-loading issues.
@@ -18,17 +56,12 @@ public class BeanUtils {
      * @return the new instance
      */
     public static Object instantiateClass(Class clazz) throws BeansException {
-        try {
-            return clazz.newInstance();
-        }
-        catch (InstantiationException ex) {
-            throw new FatalBeanException("Could not instantiate class [" + clazz.getName() +
-                    "]; Is it an interface or an abstract class? Does it have a no-arg constructor?", ex);
-        }
-        catch (IllegalAccessException ex) {
+        Object constructor = defaultConstructors.get(clazz);
+        if (constructor == NO_DEFAULT_CONSTRUCTOR) {
             throw new FatalBeanException("Could not instantiate class [" + clazz.getName() +
-                    "]; has class definition changed? Is there a public no-arg constructor?", ex);
+                    "]; Is it an interface or an abstract class? Does it have a public no-arg constructor?");
         }
+        return instantiateClass((Constructor) constructor, null);
     }
 
     /**
@@ -39,7 +72,7 @@ public class BeanUtils {
      */
     public static Object instantiateClass(Constructor constructor, Object[] arguments) throws BeansException {
         try {
-            return constructor.newInstance(arguments);
+            return instantiationStrategy.instantiate(constructor, arguments);
         }
         catch (IllegalArgumentException ex) {
             throw new FatalBeanException("Illegal arguments when trying to instantiate constructor: " + constructor, ex);
@@ -137,20 +170,42 @@ public class BeanUtils {
         if (source == null || target == null || !source.getClass().isInstance(target)) {
             throw new IllegalArgumentException("Target must an instance of source");
         }
-        List ignoreList = (ignoreProperties != null) ? Arrays.asList(ignoreProperties) : null;
-        BeanWrapper sourceBw = new BeanWrapperImpl(source);
-        BeanWrapper targetBw = new BeanWrapperImpl(target);
-        MutablePropertyValues values = new MutablePropertyValues();
-        for (int i = 0; i < sourceBw.getPropertyDescriptors().length; i++) {
-            PropertyDescriptor sourceDesc = sourceBw.getPropertyDescriptors()[i];
-            String name = sourceDesc.getName();
-            PropertyDescriptor targetDesc = targetBw.getPropertyDescriptor(name);
-            if (targetDesc.getWriteMethod() != null && targetDesc.getReadMethod() != null &&
-                    (ignoreProperties == null || (!ignoreList.contains(name)))) {
-                values.addPropertyValue(new PropertyValue(name, sourceBw.getPropertyValue(name)));
+        // accessors paired once per source class, target class and ignored properties
+        CachedIntrospectionResults.forClass(target.getClass())
+                .getCopyPlan(source.getClass(), ignoreProperties).copy(source, target);
+    }
+
+    /**
+     * Copy the property values of each of the given source beans into a new
+     * instance of the given target class, ignoring the given ignoreProperties.
+     * Resolves the accessors to use only when the source class changes.
+     * @param sources List of source beans
+     * @param targetClass class to instantiate the target beans with, which
+     * must be the class of each source bean or a subclass of it
+     * @param ignoreProperties array of property names to ignore
+     * @return List of target beans, in the order of the source beans
+     * @throws IllegalArgumentException if the classes of sources and target do not match
+     */
+    public static List copyProperties(List sources, Class targetClass, String[] ignoreProperties)
+            throws IllegalArgumentException, BeansException {
+        List targets = new ArrayList(sources.size());
+        CachedIntrospectionResults targetResults = CachedIntrospectionResults.forClass(targetClass);
+        Class sourceClass = null;
+        CopyPlan plan = null;
+        for (Iterator it = sources.iterator(); it.hasNext();) {
+            Object source = it.next();
+            if (source == null || !source.getClass().isAssignableFrom(targetClass)) {
+                throw new IllegalArgumentException("Target must an instance of source");
+            }
+            if (source.getClass() != sourceClass) {
+                sourceClass = source.getClass();
+                plan = targetResults.getCopyPlan(sourceClass, ignoreProperties);
             }
+            Object target = instantiateClass(targetClass);
+            plan.copy(source, target);
+            targets.add(target);
         }
-        targetBw.setPropertyValues(values);
+        return targets;
     }
 
 }
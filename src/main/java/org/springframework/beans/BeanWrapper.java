@@ -35,10 +35,74 @@ public interface BeanWrapper {
 
     PropertyEditor findCustomEditor(Class requiredType, String propertyPath);
 
+    /**
+     * Set the registry of Converters to try before default PropertyEditors
+     * when converting values. Custom editors registered for a property or
+     * type take precedence. Shared with nested BeanWrappers.
+     * @param converterRegistry the registry, or null for none
+     */
+    void setConverterRegistry(ConverterRegistry converterRegistry);
+
+    /**
+     * Return the registry of Converters, or null if none.
+     */
+    ConverterRegistry getConverterRegistry();
+
     Object getPropertyValue(String propertyName) throws BeansException;
 
     void setPropertyValue(String propertyName, Object value) throws BeansException;
 
+    /**
+     * Get the value of an int property, without boxing if the property is of
+     * type int. Other property values are converted to int if possible.
+     * @param propertyName name of the property, which may be nested
+     * @throws TypeMismatchException if the value cannot be returned as int
+     */
+    int getIntPropertyValue(String propertyName) throws BeansException;
+
+    /**
+     * Set the value of an int property, without boxing if the property is of type int.
+     * @param propertyName name of the property, which may be nested
+     * @param value the new value
+     */
+    void setIntPropertyValue(String propertyName, int value) throws BeansException;
+
+    /**
+     * Get the value of a long property, without boxing if the property is of type long.
+     * @see #getIntPropertyValue
+     */
+    long getLongPropertyValue(String propertyName) throws BeansException;
+
+    /**
+     * Set the value of a long property, without boxing if the property is of type long.
+     * @see #setIntPropertyValue
+     */
+    void setLongPropertyValue(String propertyName, long value) throws BeansException;
+
+    /**
+     * Get the value of a double property, without boxing if the property is of type double.
+     * @see #getIntPropertyValue
+     */
+    double getDoublePropertyValue(String propertyName) throws BeansException;
+
+    /**
+     * Set the value of a double property, without boxing if the property is of type double.
+     * @see #setIntPropertyValue
+     */
+    void setDoublePropertyValue(String propertyName, double value) throws BeansException;
+
+    /**
+     * Get the value of a boolean property, without boxing if the property is of type boolean.
+     * @see #getIntPropertyValue
+     */
+    boolean getBooleanPropertyValue(String propertyName) throws BeansException;
+
+    /**
+     * Set the value of a boolean property, without boxing if the property is of type boolean.
+     * @see #setIntPropertyValue
+     */
+    void setBooleanPropertyValue(String propertyName, boolean value) throws BeansException;
+
     void setPropertyValue(PropertyValue pv) throws BeansException;
 
     void setPropertyValues(Map map) throws BeansException;
@@ -2,13 +2,16 @@ package org.springframework.beans;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.propertyeditors.*;
+import org.springframework.util.ClassCache;
 import org.springframework.util.StringUtils;
+import org.springframework.util.TokenHandler;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
 import java.beans.PropertyEditor;
 import java.beans.PropertyEditorManager;
 import java.io.File;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -36,6 +39,44 @@ public class BeanWrapperImpl  implements BeanWrapper {
         defaultEditors.put(URL.class, URLEditor.class);
     }
 
+    /** Marker for types without default or JavaBeans PropertyEditor */
+    private static final Object NO_EDITOR = new Object();
+
+    /** Marker for JavaBeans PropertyEditors that cannot be instantiated by class */
+    private static final Object EDITOR_MANAGER_LOOKUP = new Object();
+
+    /**
+     * Default or JavaBeans PropertyEditor class for each required type, or one of
+     * the markers above. Resolved on first conversion to a type, so that the
+     * synchronized PropertyEditorManager lookup, which probes the class loader for
+     * editor classes, does not happen again. Editors registered with the
+     * PropertyEditorManager afterwards are not picked up for types already resolved.
+     */
+    private static final ClassCache defaultEditorClasses = new ClassCache() {
+        protected Object computeValue(Class type) {
+            Class editorClass = (Class) defaultEditors.get(type);
+            if (editorClass != null) {
+                return editorClass;
+            }
+            PropertyEditor editor = PropertyEditorManager.findEditor(type);
+            if (editor == null) {
+                return NO_EDITOR;
+            }
+            // JRE editors may live in packages we cannot instantiate from
+            editorClass = editor.getClass();
+            try {
+                MethodHandles.publicLookup().unreflectConstructor(editorClass.getConstructor(new Class[0]));
+                return editorClass;
+            }
+            catch (NoSuchMethodException ex) {
+                return EDITOR_MANAGER_LOOKUP;
+            }
+            catch (IllegalAccessException ex) {
+                return EDITOR_MANAGER_LOOKUP;
+            }
+        }
+    };
+
 
     //---------------------------------------------------------------------
     // Instance data
@@ -50,9 +91,24 @@ public class BeanWrapperImpl  implements BeanWrapper {
     /* Map with cached nested BeanWrappers */
     private Map nestedBeanWrappers;
 
-    /** Map with custom PropertyEditor instances */
+    /**
+     * Map with type-specific custom PropertyEditor instances, keyed by Class.
+     * Shared by reference with nested BeanWrappers.
+     */
     private Map customEditors;
 
+    /** Whether customEditors is shared, and thus needs to be copied before modification */
+    private boolean customEditorsShared;
+
+    /** Map with property-specific custom PropertyEditor instances, keyed by property name */
+    private Map propertyEditors;
+
+    /** Registry of stateless Converters, tried before default PropertyEditors */
+    private ConverterRegistry converterRegistry;
+
+    /** Default PropertyEditor instances used by this BeanWrapper, keyed by required type */
+    private Map defaultEditorInstances;
+
     /**
      * Cached introspections results for this object, to prevent encountering the cost
      * of JavaBeans introspection every time.
@@ -116,8 +172,18 @@ public class BeanWrapperImpl  implements BeanWrapper {
         if (object == null) {
             throw new FatalBeanException("Cannot set BeanWrapperImpl target to a null object");
         }
-        this.object = object;
+        switchWrappedInstance(object);
         this.nestedBeanWrappers = null;
+    }
+
+    /**
+     * Switch the target object, keeping the cached nested BeanWrappers along
+     * with their editors: each of them is revalidated against the current
+     * property value when navigated to.
+     * @param object the new target object, not null
+     */
+    private void switchWrappedInstance(Object object) throws BeansException {
+        this.object = object;
         if (this.cachedIntrospectionResults == null ||
                 !this.cachedIntrospectionResults.getBeanClass().equals(object.getClass())) {
             this.cachedIntrospectionResults = CachedIntrospectionResults.forClass(object.getClass());
@@ -139,10 +205,12 @@ public class BeanWrapperImpl  implements BeanWrapper {
 
     public void registerCustomEditor(Class requiredType, String propertyPath, PropertyEditor propertyEditor) {
         if (propertyPath != null) {
-            List bws = getBeanWrappersForPropertyPath(propertyPath);
+            PropertyPath path = PropertyPath.forPath(propertyPath);
+            List bws = new ArrayList();
+            collectBeanWrappersForPropertyPath(path, 0, bws);
             for (Iterator it = bws.iterator(); it.hasNext();) {
                 BeanWrapperImpl bw = (BeanWrapperImpl) it.next();
-                bw.doRegisterCustomEditor(requiredType, getFinalPath(propertyPath), propertyEditor);
+                bw.doRegisterCustomEditor(requiredType, path.getFinalToken().getPropertyName(), propertyEditor);
             }
         }
         else {
@@ -151,9 +219,6 @@ public class BeanWrapperImpl  implements BeanWrapper {
     }
 
     private void doRegisterCustomEditor(Class requiredType, String propertyName, PropertyEditor propertyEditor) {
-        if (this.customEditors == null) {
-            this.customEditors = new HashMap();
-        }
         if (propertyName != null) {
             // consistency check
             PropertyDescriptor descriptor = getPropertyDescriptor(propertyName);
@@ -161,28 +226,48 @@ public class BeanWrapperImpl  implements BeanWrapper {
                 throw new IllegalArgumentException("Types do not match: required [" + requiredType.getName() +
                         "], found [" + descriptor.getPropertyType().getName() + "]");
             }
-            this.customEditors.put(propertyName, propertyEditor);
+            if (this.propertyEditors == null) {
+                this.propertyEditors = new HashMap();
+            }
+            this.propertyEditors.put(propertyName, propertyEditor);
         }
         else {
             if (requiredType == null) {
                 throw new IllegalArgumentException("No propertyName and no requiredType specified");
             }
+            if (this.customEditors == null) {
+                this.customEditors = new HashMap();
+            }
+            else if (this.customEditorsShared) {
+                // copy on write: leave the editors of other BeanWrappers untouched
+                this.customEditors = new HashMap(this.customEditors);
+                this.customEditorsShared = false;
+            }
             this.customEditors.put(requiredType, propertyEditor);
         }
     }
 
     public PropertyEditor findCustomEditor(Class requiredType, String propertyPath) {
         if (propertyPath != null) {
-            BeanWrapperImpl bw = getBeanWrapperForPropertyPath(propertyPath);
-            return bw.doFindCustomEditor(requiredType, getFinalPath(propertyPath));
+            PropertyPath path = PropertyPath.forPath(propertyPath);
+            BeanWrapperImpl bw = getBeanWrapperForPropertyPath(path);
+            return bw.doFindCustomEditor(requiredType, path.getFinalToken().getPropertyName());
         }
         else {
             return doFindCustomEditor(requiredType, propertyPath);
         }
     }
 
+    public void setConverterRegistry(ConverterRegistry converterRegistry) {
+        this.converterRegistry = converterRegistry;
+    }
+
+    public ConverterRegistry getConverterRegistry() {
+        return converterRegistry;
+    }
+
     private PropertyEditor doFindCustomEditor(Class requiredType, String propertyName) {
-        if (this.customEditors == null) {
+        if (this.customEditors == null && this.propertyEditors == null) {
             return null;
         }
         if (propertyName != null) {
@@ -190,7 +275,8 @@ public class BeanWrapperImpl  implements BeanWrapper {
             PropertyDescriptor descriptor = null;
             try {
                 descriptor = getPropertyDescriptor(propertyName);
-                PropertyEditor editor = (PropertyEditor) this.customEditors.get(propertyName);
+                PropertyEditor editor =
+                        (this.propertyEditors != null ? (PropertyEditor) this.propertyEditors.get(propertyName) : null);
                 if (editor != null) {
                     // consistency check
                     if (requiredType != null) {
@@ -215,107 +301,80 @@ public class BeanWrapperImpl  implements BeanWrapper {
             }
         }
         // no property-specific editor -> check type-specific editor
-        return (PropertyEditor) this.customEditors.get(requiredType);
-    }
-
-
-    /**
-     * Is the property nested? That is, does it contain the nested
-     * property separator (usually ".").
-     * @param path property path
-     * @return boolean is the property nested
-     */
-    private boolean isNestedProperty(String path) {
-        return path.indexOf(NESTED_PROPERTY_SEPARATOR) != -1;
+        return (this.customEditors != null ? (PropertyEditor) this.customEditors.get(requiredType) : null);
     }
 
-    /**
-     * Get the last component of the path. Also works if not nested.
-     * @param nestedPath property path we know is nested
-     * @return last component of the path (the property on the target bean)
-     */
-    private String getFinalPath(String nestedPath) {
-        String finalPath = nestedPath.substring(nestedPath.lastIndexOf(NESTED_PROPERTY_SEPARATOR) + 1);
-        if (log.isDebugEnabled() && !nestedPath.equals(finalPath)) {
-            log.debug("Final path in nested property value '" + nestedPath + "' is '" + finalPath + "'");
-        }
-        return finalPath;
-    }
 
     /**
-     * Recursively navigate to return a BeanWrapper for the nested property path.
-     * @param propertyPath property property path, which may be nested
+     * Navigate to return a BeanWrapper for the nested property path.
+     * @param propertyPath parsed property path, which may be nested
      * @return a BeanWrapper for the target bean
      */
-    private BeanWrapperImpl getBeanWrapperForPropertyPath(String propertyPath) {
-        int pos = propertyPath.indexOf(NESTED_PROPERTY_SEPARATOR);
-        // Handle nested properties recursively
-        if (pos > -1) {
-            String nestedProperty = propertyPath.substring(0, pos);
-            String nestedPath = propertyPath.substring(pos + 1);
-            log.debug("Navigating to nested property '" + nestedProperty + "' of property path '" + propertyPath + "'");
-            BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
-            return nestedBw.getBeanWrapperForPropertyPath(nestedPath);
-        }
-        else {
-            return this;
+    private BeanWrapperImpl getBeanWrapperForPropertyPath(PropertyPath propertyPath) {
+        BeanWrapperImpl bw = this;
+        for (int i = 0; i < propertyPath.getTokenCount() - 1; i++) {
+            PropertyPath.Token token = propertyPath.getToken(i);
+            if (log.isDebugEnabled()) {
+                log.debug("Navigating to nested property '" + token.getPropertyName() + "' of property path '" +
+                        propertyPath.getPath() + "'");
+            }
+            bw = bw.getNestedBeanWrapper(token);
         }
+        return bw;
     }
 
     /**
-     * Recursively navigate to return a BeanWrapper for the nested property path.
-     * In case of an indexed or mapped property, all BeanWrappers that apply will
-     * be returned.
-     * @param propertyPath property property path, which may be nested
-     * @return a BeanWrapper for the target bean
+     * Recursively navigate to collect the BeanWrappers for the nested property path,
+     * walking its parsed tokens. In case of an array, List or Map property without
+     * index or key, the BeanWrappers for all its elements apply.
+     * @param propertyPath parsed property path, which may be nested
+     * @param tokenIndex the index of the token to navigate from this BeanWrapper
+     * @param beanWrappers the List to add the BeanWrappers for the target beans to
      */
-    private List getBeanWrappersForPropertyPath(String propertyPath) {
-        List beanWrappers = new ArrayList();
-        int pos = propertyPath.indexOf(NESTED_PROPERTY_SEPARATOR);
-        // handle nested properties recursively
-        if (pos > -1) {
-            String nestedProperty = propertyPath.substring(0, pos);
-            String nestedPath = propertyPath.substring(pos + 1);
-            if (nestedProperty.indexOf('[') == -1) {
-                Class propertyType = getPropertyDescriptor(nestedProperty).getPropertyType();
-                if (propertyType.isArray()) {
-                    Object[] array = (Object[]) getPropertyValue(nestedProperty);
-                    for (int i = 0; i < array.length; i++) {
-                        beanWrappers.addAll(
-                                getBeanWrappersForNestedProperty(propertyPath, nestedProperty + "[" + i + "]", nestedPath));
-                    }
-                    return beanWrappers;
+    private void collectBeanWrappersForPropertyPath(PropertyPath propertyPath, int tokenIndex, List beanWrappers) {
+        if (tokenIndex == propertyPath.getTokenCount() - 1) {
+            beanWrappers.add(this);
+            return;
+        }
+        PropertyPath.Token token = propertyPath.getToken(tokenIndex);
+        if (token.getKey() == null) {
+            String nestedProperty = token.getActualName();
+            Class propertyType = getPropertyDescriptor(nestedProperty).getPropertyType();
+            if (propertyType.isArray()) {
+                Object[] array = (Object[]) getPropertyValue(nestedProperty);
+                for (int i = 0; i < array.length; i++) {
+                    collectBeanWrappersForNestedProperty(propertyPath, tokenIndex,
+                            PropertyPath.createToken(nestedProperty, String.valueOf(i)), beanWrappers);
                 }
-                else if (List.class.isAssignableFrom(propertyType)) {
-                    List list = (List) getPropertyValue(nestedProperty);
-                    for (int i = 0; i < list.size(); i++) {
-                        beanWrappers.addAll(
-                                getBeanWrappersForNestedProperty(propertyPath, nestedProperty + "[" + i + "]", nestedPath));
-                    }
-                    return beanWrappers;
+                return;
+            }
+            else if (List.class.isAssignableFrom(propertyType)) {
+                List list = (List) getPropertyValue(nestedProperty);
+                for (int i = 0; i < list.size(); i++) {
+                    collectBeanWrappersForNestedProperty(propertyPath, tokenIndex,
+                            PropertyPath.createToken(nestedProperty, String.valueOf(i)), beanWrappers);
                 }
-                else if (Map.class.isAssignableFrom(propertyType)) {
-                    Map map = (Map) getPropertyValue(nestedProperty);
-                    for (Iterator it = map.keySet().iterator(); it.hasNext();) {
-                        beanWrappers.addAll(
-                                getBeanWrappersForNestedProperty(propertyPath, nestedProperty + "[" + it.next() + "]", nestedPath));
-                    }
-                    return beanWrappers;
+                return;
+            }
+            else if (Map.class.isAssignableFrom(propertyType)) {
+                Map map = (Map) getPropertyValue(nestedProperty);
+                for (Iterator it = map.keySet().iterator(); it.hasNext();) {
+                    collectBeanWrappersForNestedProperty(propertyPath, tokenIndex,
+                            PropertyPath.createToken(nestedProperty, String.valueOf(it.next())), beanWrappers);
                 }
+                return;
             }
-            beanWrappers.addAll(getBeanWrappersForNestedProperty(propertyPath, nestedProperty, nestedPath));
-            return beanWrappers;
-        }
-        else {
-            beanWrappers.add(this);
-            return beanWrappers;
         }
+        collectBeanWrappersForNestedProperty(propertyPath, tokenIndex, token, beanWrappers);
     }
 
-    private List getBeanWrappersForNestedProperty(String propertyPath, String nestedProperty, String nestedPath) {
-        log.debug("Navigating to nested property '" + nestedProperty + "' of property path '" + propertyPath + "'");
-        BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
-        return nestedBw.getBeanWrappersForPropertyPath(nestedPath);
+    private void collectBeanWrappersForNestedProperty(PropertyPath propertyPath, int tokenIndex,
+                                                      PropertyPath.Token nestedProperty, List beanWrappers) {
+        if (log.isDebugEnabled()) {
+            log.debug("Navigating to nested property '" + nestedProperty.getPropertyName() +
+                    "' of property path '" + propertyPath.getPath() + "'");
+        }
+        getNestedBeanWrapper(nestedProperty).collectBeanWrappersForPropertyPath(propertyPath, tokenIndex + 1, beanWrappers);
     }
 
     /**
@@ -323,79 +382,75 @@ public class BeanWrapperImpl  implements BeanWrapper {
      * Create a new one if not found in the cache.
      * <p>Note: Caching nested BeanWrappers is necessary now,
      * to keep registered custom editors for nested properties.
-     * @param nestedProperty property to create the BeanWrapper for
+     * <p>A cached BeanWrapper is switched to the current property value
+     * if the property value has been replaced in the meantime.
+     * @param nestedProperty parsed property to create the BeanWrapper for
      * @return the BeanWrapper instance, either cached or newly created
      */
-    private BeanWrapperImpl getNestedBeanWrapper(String nestedProperty) {
-        if (this.nestedBeanWrappers == null) {
-            this.nestedBeanWrappers = new HashMap();
-        }
+    private BeanWrapperImpl getNestedBeanWrapper(PropertyPath.Token nestedProperty) {
         // get value of bean property
-        String[] tokens = getPropertyNameTokens(nestedProperty);
-        Object propertyValue = getPropertyValue(tokens[0], tokens[1], tokens[2]);
-        String canonicalName = tokens[0];
+        String canonicalName = nestedProperty.getCanonicalName();
+        Object propertyValue = getPropertyValue(canonicalName, nestedProperty.getActualName(), nestedProperty.getKey());
         if (propertyValue == null) {
             throw new NullValueInNestedPathException(getWrappedClass(), canonicalName);
         }
 
         // lookup cached sub-BeanWrapper, create new one if not found
-        BeanWrapperImpl nestedBw = (BeanWrapperImpl) this.nestedBeanWrappers.get(canonicalName);
+        BeanWrapperImpl nestedBw =
+                (this.nestedBeanWrappers != null ? (BeanWrapperImpl) this.nestedBeanWrappers.get(canonicalName) : null);
         if (nestedBw == null) {
-            log.debug("Creating new nested BeanWrapper for property '" + canonicalName + "'");
+            if (log.isDebugEnabled()) {
+                log.debug("Creating new nested BeanWrapper for property '" + canonicalName + "'");
+            }
             nestedBw = new BeanWrapperImpl(propertyValue, this.nestedPath + canonicalName + NESTED_PROPERTY_SEPARATOR);
-            // inherit all type-specific PropertyEditors
+            nestedBw.setConverterRegistry(this.converterRegistry);
+            // inherit all type-specific PropertyEditors: share them until either side registers more
             if (this.customEditors != null) {
-                for (Iterator it = this.customEditors.keySet().iterator(); it.hasNext();) {
-                    Object key = it.next();
-                    if (key instanceof Class) {
-                        Class requiredType = (Class) key;
-                        PropertyEditor propertyEditor = (PropertyEditor) this.customEditors.get(key);
-                        nestedBw.registerCustomEditor(requiredType, null, propertyEditor);
-                    }
-                }
+                nestedBw.customEditors = this.customEditors;
+                nestedBw.customEditorsShared = true;
+                this.customEditorsShared = true;
+            }
+            if (this.nestedBeanWrappers == null) {
+                this.nestedBeanWrappers = new HashMap();
             }
             this.nestedBeanWrappers.put(canonicalName, nestedBw);
         }
-        else {
+        else if (nestedBw.getWrappedInstance() != propertyValue) {
+            // property value replaced: keep editors registered for the nested path
+            if (log.isDebugEnabled()) {
+                log.debug("Switching cached nested BeanWrapper for property '" + canonicalName + "' to new value");
+            }
+            nestedBw.switchWrappedInstance(propertyValue);
+        }
+        else if (log.isDebugEnabled()) {
             log.debug("Using cached nested BeanWrapper for property '" + canonicalName + "'");
         }
         return nestedBw;
     }
 
-    private String[] getPropertyNameTokens(String propertyName) {
-        String actualName = propertyName;
-        String key = null;
-        int keyStart = propertyName.indexOf('[');
-        if (keyStart != -1 && propertyName.endsWith("]")) {
-            actualName = propertyName.substring(0, keyStart);
-            key = propertyName.substring(keyStart + 1, propertyName.length() - 1);
-            if (key.startsWith("'") && key.endsWith("'")) {
-                key = key.substring(1, key.length() - 1);
+    public Object getPropertyValue(String propertyName) throws BeansException {
+        // fast path for simple properties: no path parsing, no allocation
+        PropertyInvoker invoker = this.cachedIntrospectionResults.findPropertyInvoker(propertyName);
+        if (invoker != null && invoker.getReadMethod() != null) {
+            try {
+                return invoker.read(this.object);
             }
-            else if (key.startsWith("\"") && key.endsWith("\"")) {
-                key = key.substring(1, key.length() - 1);
+            catch (InvocationTargetException ex) {
+                throw new FatalBeanException("Getter for property '" + propertyName + "' threw exception", ex);
+            }
+            catch (IllegalAccessException ex) {
+                throw new FatalBeanException("Illegal attempt to get property '" + propertyName + "' threw exception", ex);
             }
         }
-        String canonicalName = actualName;
-        if (key != null) {
-            canonicalName += "[" + key + "]";
-        }
-        return new String[] {canonicalName, actualName, key};
-    }
-
-
-    public Object getPropertyValue(String propertyName) throws BeansException {
-        if (isNestedProperty(propertyName)) {
-            BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-            return nestedBw.getPropertyValue(getFinalPath(propertyName));
-        }
-        String[] tokens = getPropertyNameTokens(propertyName);
-        return getPropertyValue(tokens[0], tokens[1], tokens[2]);
+        PropertyPath path = PropertyPath.forPath(propertyName);
+        BeanWrapperImpl bw = (path.isNested() ? getBeanWrapperForPropertyPath(path) : this);
+        PropertyPath.Token token = path.getFinalToken();
+        return bw.getPropertyValue(token.getCanonicalName(), token.getActualName(), token.getKey());
     }
 
     private Object getPropertyValue(String propertyName, String actualName, String key) {
-        PropertyDescriptor pd = getPropertyDescriptor(actualName);
-        Method readMethod = pd.getReadMethod();
+        PropertyInvoker invoker = this.cachedIntrospectionResults.getPropertyInvoker(actualName);
+        Method readMethod = invoker.getReadMethod();
         if (readMethod == null) {
             throw new FatalBeanException("Cannot get property '" + actualName + "': not readable", null);
         }
@@ -403,7 +458,7 @@ public class BeanWrapperImpl  implements BeanWrapper {
             log.debug("About to invoke read method [" + readMethod +
                     "] on object of class [" + this.object.getClass().getName() + "]");
         try {
-            Object value = readMethod.invoke(this.object, null);
+            Object value = invoker.read(this.object);
             if (key != null) {
                 if (value == null) {
                     throw new FatalBeanException("Cannot access indexed value in property referenced in indexed property path '" +
@@ -459,10 +514,18 @@ public class BeanWrapperImpl  implements BeanWrapper {
     }
 
     public void setPropertyValue(String propertyName, Object value) throws BeansException {
-        if (isNestedProperty(propertyName)) {
+        // fast path for simple properties: no path parsing and writability check
+        PropertyInvoker invoker = this.cachedIntrospectionResults.findPropertyInvoker(propertyName);
+        if (invoker != null && invoker.getWriteMethod() != null) {
+            setPropertyValue(propertyName, invoker, value);
+            return;
+        }
+        PropertyPath path = PropertyPath.forPath(propertyName);
+        PropertyPath.Token token = path.getFinalToken();
+        if (path.isNested()) {
             try {
-                BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-                nestedBw.setPropertyValue(new PropertyValue(getFinalPath(propertyName), value));
+                BeanWrapperImpl nestedBw = getBeanWrapperForPropertyPath(path);
+                nestedBw.setPropertyValue(token.getCanonicalName(), token.getActualName(), token.getKey(), value);
                 return;
             }
             catch (NullValueInNestedPathException ex) {
@@ -474,8 +537,7 @@ public class BeanWrapperImpl  implements BeanWrapper {
                 throw new NotWritablePropertyException(propertyName, getWrappedClass(), ex);
             }
         }
-        String[] tokens = getPropertyNameTokens(propertyName);
-        setPropertyValue(tokens[0], tokens[1], tokens[2], value);
+        setPropertyValue(token.getCanonicalName(), token.getActualName(), token.getKey(), value);
     }
 
     private void setPropertyValue(String propertyName, String actualName, String key, Object value)
@@ -523,10 +585,33 @@ public class BeanWrapperImpl  implements BeanWrapper {
             if (!isWritableProperty(propertyName)) {
                 throw new NotWritablePropertyException(propertyName, getWrappedClass());
             }
-            PropertyDescriptor pd = getPropertyDescriptor(propertyName);
-            Method writeMethod = pd.getWriteMethod();
-            Object newValue = null;
-            try {
+            setPropertyValue(propertyName, this.cachedIntrospectionResults.getPropertyInvoker(propertyName), value);
+        }
+    }
+
+    /**
+     * Convert the given value and set it on the given simple, writable property.
+     * @param propertyName the name of the property
+     * @param invoker the PropertyInvoker of the property
+     * @param value the value to convert and set
+     * @throws BeansException if conversion or invocation failed
+     * @see CopyPlan#copy
+     */
+    void setPropertyValue(String propertyName, PropertyInvoker invoker, Object value) throws BeansException {
+        PropertyDescriptor pd = invoker.getPropertyDescriptor();
+        Method writeMethod = invoker.getWriteMethod();
+        Object newValue = value;
+        try {
+            // no conversion (and no allocation) for values of the required type without custom editors
+            if (value instanceof String && this.customEditors == null && this.propertyEditors == null &&
+                    invoker.isTextWritable() && (this.converterRegistry == null ||
+                    this.converterRegistry.getConverter(String.class, pd.getPropertyType()) == null)) {
+                // parse text for primitive property directly, without PropertyEditor and boxing
+                invoker.writeText(this.object, (String) value);
+                return;
+            }
+            if (this.customEditors != null || this.propertyEditors != null ||
+                    !invoker.isAssignableWithoutConversion(value)) {
                 // old value may still be null
                 newValue = doTypeConversionIfNecessary(propertyName, propertyName, null, value, pd.getPropertyType());
 
@@ -535,47 +620,232 @@ public class BeanWrapperImpl  implements BeanWrapper {
                     throw new IllegalArgumentException("Invalid value [" + value + "] for property '" +
                             pd.getName() + "' of primitive type [" + pd.getPropertyType() + "]");
                 }
+            }
 
-                if (log.isDebugEnabled()) {
-                    log.debug("About to invoke write method [" + writeMethod +
-                            "] on object of class [" + object.getClass().getName() + "]");
-                }
-                writeMethod.invoke(this.object, new Object[] { newValue });
-                if (log.isDebugEnabled()) {
-                    String msg = "Invoked write method [" + writeMethod + "] with value ";
-                    // only cause toString invocation of new value in case of simple property
-                    if (newValue == null || BeanUtils.isSimpleProperty(pd.getPropertyType())) {
-                        log.debug(msg + "[" + newValue + "]");
-                    }
-                    else {
-                        log.debug(msg + "of type [" + pd.getPropertyType().getName() + "]");
-                    }
-                }
+            if (log.isDebugEnabled()) {
+                log.debug("About to invoke write method [" + writeMethod +
+                        "] on object of class [" + object.getClass().getName() + "]");
             }
-            catch (InvocationTargetException ex) {
-                // TODO could consider getting rid of PropertyChangeEvents as exception parameters
-                // as they can never contain anything but null for the old value as we no longer
-                // support event propagation.
-                PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(this.object, this.nestedPath + propertyName,
-                        null, newValue);
-                if (ex.getTargetException() instanceof ClassCastException) {
-                    throw new TypeMismatchException(propertyChangeEvent, pd.getPropertyType(), ex.getTargetException());
+            invoker.write(this.object, newValue);
+            if (log.isDebugEnabled()) {
+                String msg = "Invoked write method [" + writeMethod + "] with value ";
+                // only cause toString invocation of new value in case of simple property
+                if (newValue == null || BeanUtils.isSimpleProperty(pd.getPropertyType())) {
+                    log.debug(msg + "[" + newValue + "]");
                 }
                 else {
-                    throw new MethodInvocationException(ex.getTargetException(), propertyChangeEvent);
+                    log.debug(msg + "of type [" + pd.getPropertyType().getName() + "]");
                 }
             }
+        }
+        catch (InvocationTargetException ex) {
+            // TODO could consider getting rid of PropertyChangeEvents as exception parameters
+            // as they can never contain anything but null for the old value as we no longer
+            // support event propagation.
+            PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(this.object, this.nestedPath + propertyName,
+                    null, newValue);
+            if (ex.getTargetException() instanceof ClassCastException) {
+                throw new TypeMismatchException(propertyChangeEvent, pd.getPropertyType(), ex.getTargetException());
+            }
+            else {
+                throw new MethodInvocationException(ex.getTargetException(), propertyChangeEvent);
+            }
+        }
+        catch (IllegalAccessException ex) {
+            throw new FatalBeanException("Illegal attempt to set property [" + value + "] threw exception", ex);
+        }
+        catch (IllegalArgumentException ex) {
+            PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(this.object, this.nestedPath + propertyName,
+                    null, newValue);
+            throw new TypeMismatchException(propertyChangeEvent, pd.getPropertyType(), ex);
+        }
+    }
+
+    public int getIntPropertyValue(String propertyName) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, int.class, false);
+        if (invoker != null) {
+            try {
+                return invoker.readInt(this.object);
+            }
+            catch (InvocationTargetException ex) {
+                throw createReadException(propertyName, ex);
+            }
             catch (IllegalAccessException ex) {
-                throw new FatalBeanException("Illegal attempt to set property [" + value + "] threw exception", ex);
+                throw createReadException(propertyName, ex);
             }
-            catch (IllegalArgumentException ex) {
-                PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(this.object, this.nestedPath + propertyName,
-                        null, newValue);
-                throw new TypeMismatchException(propertyChangeEvent, pd.getPropertyType(), ex);
+        }
+        return ((Integer) getConvertedPropertyValue(propertyName, int.class)).intValue();
+    }
+
+    public void setIntPropertyValue(String propertyName, int value) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, int.class, true);
+        if (invoker == null) {
+            setPropertyValue(propertyName, Integer.valueOf(value));
+            return;
+        }
+        try {
+            invoker.writeInt(this.object, value);
+        }
+        catch (InvocationTargetException ex) {
+            throw createWriteException(propertyName, Integer.valueOf(value), ex);
+        }
+        catch (IllegalAccessException ex) {
+            throw createWriteException(propertyName, Integer.valueOf(value), ex);
+        }
+    }
+
+    public long getLongPropertyValue(String propertyName) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, long.class, false);
+        if (invoker != null) {
+            try {
+                return invoker.readLong(this.object);
+            }
+            catch (InvocationTargetException ex) {
+                throw createReadException(propertyName, ex);
+            }
+            catch (IllegalAccessException ex) {
+                throw createReadException(propertyName, ex);
+            }
+        }
+        return ((Long) getConvertedPropertyValue(propertyName, long.class)).longValue();
+    }
+
+    public void setLongPropertyValue(String propertyName, long value) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, long.class, true);
+        if (invoker == null) {
+            setPropertyValue(propertyName, Long.valueOf(value));
+            return;
+        }
+        try {
+            invoker.writeLong(this.object, value);
+        }
+        catch (InvocationTargetException ex) {
+            throw createWriteException(propertyName, Long.valueOf(value), ex);
+        }
+        catch (IllegalAccessException ex) {
+            throw createWriteException(propertyName, Long.valueOf(value), ex);
+        }
+    }
+
+    public double getDoublePropertyValue(String propertyName) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, double.class, false);
+        if (invoker != null) {
+            try {
+                return invoker.readDouble(this.object);
             }
+            catch (InvocationTargetException ex) {
+                throw createReadException(propertyName, ex);
+            }
+            catch (IllegalAccessException ex) {
+                throw createReadException(propertyName, ex);
+            }
+        }
+        return ((Double) getConvertedPropertyValue(propertyName, double.class)).doubleValue();
+    }
+
+    public void setDoublePropertyValue(String propertyName, double value) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, double.class, true);
+        if (invoker == null) {
+            setPropertyValue(propertyName, Double.valueOf(value));
+            return;
+        }
+        try {
+            invoker.writeDouble(this.object, value);
+        }
+        catch (InvocationTargetException ex) {
+            throw createWriteException(propertyName, Double.valueOf(value), ex);
+        }
+        catch (IllegalAccessException ex) {
+            throw createWriteException(propertyName, Double.valueOf(value), ex);
         }
     }
 
+    public boolean getBooleanPropertyValue(String propertyName) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, boolean.class, false);
+        if (invoker != null) {
+            try {
+                return invoker.readBoolean(this.object);
+            }
+            catch (InvocationTargetException ex) {
+                throw createReadException(propertyName, ex);
+            }
+            catch (IllegalAccessException ex) {
+                throw createReadException(propertyName, ex);
+            }
+        }
+        return ((Boolean) getConvertedPropertyValue(propertyName, boolean.class)).booleanValue();
+    }
+
+    public void setBooleanPropertyValue(String propertyName, boolean value) throws BeansException {
+        PropertyInvoker invoker = findPrimitivePropertyInvoker(propertyName, boolean.class, true);
+        if (invoker == null) {
+            setPropertyValue(propertyName, Boolean.valueOf(value));
+            return;
+        }
+        try {
+            invoker.writeBoolean(this.object, value);
+        }
+        catch (InvocationTargetException ex) {
+            throw createWriteException(propertyName, Boolean.valueOf(value), ex);
+        }
+        catch (IllegalAccessException ex) {
+            throw createWriteException(propertyName, Boolean.valueOf(value), ex);
+        }
+    }
+
+    /**
+     * Return the PropertyInvoker for direct access to the given simple property
+     * of the given primitive type.
+     * @param propertyName the name of the property
+     * @param primitiveType the primitive type the property needs to have
+     * @param write whether to write the property: requires that no custom
+     * editors are registered, which would have to be applied
+     * @return the PropertyInvoker, or null if direct access does not apply
+     */
+    private PropertyInvoker findPrimitivePropertyInvoker(String propertyName, Class primitiveType, boolean write) {
+        PropertyInvoker invoker = this.cachedIntrospectionResults.findPropertyInvoker(propertyName);
+        if (invoker == null || invoker.getPropertyType() != primitiveType) {
+            return null;
+        }
+        if (write) {
+            if (invoker.getWriteMethod() == null || this.customEditors != null || this.propertyEditors != null) {
+                return null;
+            }
+        }
+        else if (invoker.getReadMethod() == null) {
+            return null;
+        }
+        return invoker;
+    }
+
+    /**
+     * Get the value of the given property, converted to the given primitive type.
+     * @throws TypeMismatchException if the value cannot be converted
+     */
+    private Object getConvertedPropertyValue(String propertyName, Class primitiveType) throws BeansException {
+        Object value = getPropertyValue(propertyName);
+        Object convertedValue = doTypeConversionIfNecessary(propertyName, propertyName, null, value, primitiveType);
+        if (convertedValue == null || !BeanUtils.isAssignable(primitiveType, convertedValue)) {
+            throw new TypeMismatchException(createPropertyChangeEvent(propertyName, null, value), primitiveType);
+        }
+        return convertedValue;
+    }
+
+    private BeansException createReadException(String propertyName, Exception ex) {
+        if (ex instanceof InvocationTargetException) {
+            return new FatalBeanException("Getter for property '" + propertyName + "' threw exception", ex);
+        }
+        return new FatalBeanException("Illegal attempt to get property '" + propertyName + "' threw exception", ex);
+    }
+
+    private BeansException createWriteException(String propertyName, Object value, Exception ex) {
+        if (ex instanceof InvocationTargetException) {
+            return new MethodInvocationException(((InvocationTargetException) ex).getTargetException(),
+                    createPropertyChangeEvent(propertyName, null, value));
+        }
+        return new FatalBeanException("Illegal attempt to set property [" + value + "] threw exception", ex);
+    }
+
     public void setPropertyValue(PropertyValue pv) throws BeansException {
         setPropertyValue(pv.getName(), pv.getValue());
     }
@@ -597,14 +867,32 @@ public class BeanWrapperImpl  implements BeanWrapper {
     }
 
     public void setPropertyValues(PropertyValues propertyValues, boolean ignoreUnknown) throws BeansException {
-        List propertyAccessExceptions = new ArrayList();
+        List propertyAccessExceptions = null;
         PropertyValue[] pvs = propertyValues.getPropertyValues();
+        String[] propertyNames = new String[pvs.length];
+        for (int i = 0; i < pvs.length; i++) {
+            propertyNames[i] = pvs[i].getName();
+        }
+        // setters resolved once per bean class and set of property names
+        BindingPlan plan = this.cachedIntrospectionResults.getBindingPlan(propertyNames);
         for (int i = 0; i < pvs.length; i++) {
+            Object target = plan.getTarget(i);
             try {
                 // This method may throw ReflectionException, which won't be caught
                 // here, if there is a critical failure such as no matching field.
                 // We can attempt to deal only with less serious exceptions.
-                setPropertyValue(pvs[i]);
+                if (target == BindingPlan.NOT_WRITABLE) {
+                    if (!ignoreUnknown) {
+                        throw new NotWritablePropertyException(propertyNames[i], getWrappedClass());
+                    }
+                    // otherwise, just ignore it and continue...
+                }
+                else if (target == BindingPlan.PROPERTY_PATH) {
+                    setPropertyValue(pvs[i]);
+                }
+                else {
+                    setPropertyValue(propertyNames[i], (PropertyInvoker) target, pvs[i].getValue());
+                }
             }
             // fatal ReflectionExceptions will just be rethrown
             catch (NotWritablePropertyException ex) {
@@ -614,15 +902,21 @@ public class BeanWrapperImpl  implements BeanWrapper {
                 // otherwise, just ignore it and continue...
             }
             catch (TypeMismatchException ex) {
+                if (propertyAccessExceptions == null) {
+                    propertyAccessExceptions = new ArrayList();
+                }
                 propertyAccessExceptions.add(ex);
             }
             catch (MethodInvocationException ex) {
+                if (propertyAccessExceptions == null) {
+                    propertyAccessExceptions = new ArrayList();
+                }
                 propertyAccessExceptions.add(ex);
             }
         }
 
         // if we encountered individual exceptions, throw the composite exception
-        if (!propertyAccessExceptions.isEmpty()) {
+        if (propertyAccessExceptions != null) {
             Object[] paeArray = propertyAccessExceptions.toArray(new PropertyAccessException[propertyAccessExceptions.size()]);
             throw new PropertyAccessExceptionsException(this, (PropertyAccessException[]) paeArray);
         }
@@ -667,32 +961,56 @@ public class BeanWrapperImpl  implements BeanWrapper {
 
             if (requiredType.isArray()) {
                 // convert individual elements to array elements
-                Class componentType = requiredType.getComponentType();
-                if (newValue instanceof List) {
-                    List list = (List) newValue;
-                    Object result = Array.newInstance(componentType, list.size());
-                    for (int i = 0; i < list.size(); i++) {
-                        Object value = doTypeConversionIfNecessary(propertyName, propertyName + "[" + i + "]",
-                                null, list.get(i), componentType);
-                        Array.set(result, i, value);
-                    }
-                    return result;
+                Object[] elements = null;
+                if (newValue instanceof Object[] || newValue instanceof Collection ||
+                        (newValue.getClass().isArray() && !requiredType.isInstance(newValue))) {
+                    elements = toElementArray(newValue);
                 }
-                else if (newValue instanceof Object[]) {
-                    Object[] array = (Object[]) newValue;
-                    Object result = Array.newInstance(componentType, array.length);
-                    for (int i = 0; i < array.length; i++) {
-                        Object value = doTypeConversionIfNecessary(propertyName, propertyName + "[" + i + "]",
-                                null, array[i], componentType);
-                        Array.set(result, i, value);
-                    }
-                    return result;
+                else if (newValue instanceof String && findCustomEditor(requiredType, propertyName) == null &&
+                        (this.converterRegistry == null ||
+                                this.converterRegistry.getConverter(String.class, requiredType) == null)) {
+                    // comma-delimited elements
+                    return convertToTypedArray(propertyName, (String) newValue, requiredType.getComponentType());
+                }
+                if (elements != null) {
+                    return convertToTypedArray(propertyName, elements, requiredType.getComponentType());
                 }
             }
 
             // custom editor for this type?
             PropertyEditor pe = findCustomEditor(requiredType, propertyName);
 
+            // else stateless converter for this pair of types?
+            if (pe == null && this.converterRegistry != null && !requiredType.isInstance(newValue)) {
+                Converter converter = this.converterRegistry.getConverter(newValue.getClass(), requiredType);
+                if (converter != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Converting [" + newValue.getClass().getName() + "] to [" + requiredType +
+                                "] using converter [" + converter + "]");
+                    }
+                    try {
+                        return converter.convert(newValue);
+                    }
+                    catch (IllegalArgumentException ex) {
+                        throw new TypeMismatchException(createPropertyChangeEvent(propertyDescriptor, oldValue, newValue),
+                                requiredType, ex);
+                    }
+                }
+            }
+
+            // array, other Collection or comma-delimited String for a Collection?
+            if (pe == null && Collection.class.isAssignableFrom(requiredType) && !requiredType.isInstance(newValue) &&
+                    (newValue.getClass().isArray() || newValue instanceof Collection || newValue instanceof String)) {
+                Object[] elements = toElementArray(newValue);
+                Collection result = createCollection(requiredType, elements.length);
+                if (result != null) {
+                    for (int i = 0; i < elements.length; i++) {
+                        result.add(elements[i]);
+                    }
+                    return result;
+                }
+            }
+
             // value not of required type?
             if (pe != null || !requiredType.isAssignableFrom(newValue.getClass())) {
 
@@ -705,12 +1023,9 @@ public class BeanWrapperImpl  implements BeanWrapper {
 
                 if (newValue instanceof String) {
                     if (pe == null) {
-                        // no custom editor -> check BeanWrapper's default editors
+                        // no custom editor -> check BeanWrapper's default editors,
+                        // then standard JavaBean editors
                         pe = findDefaultEditor(requiredType);
-                        if (pe == null) {
-                            // no BeanWrapper default editor -> check standard JavaBean editors
-                            pe = PropertyEditorManager.findEditor(requiredType);
-                        }
                     }
                     if (pe != null) {
                         // use PropertyEditor's setAsText in case of a String value
@@ -761,14 +1076,262 @@ public class BeanWrapperImpl  implements BeanWrapper {
         return newValue;
     }
 
-    private PropertyEditor findDefaultEditor(Class type) {
-        Class editorClass = (Class) defaultEditors.get(type);
-        if (editorClass != null) {
-            return (PropertyEditor) BeanUtils.instantiateClass(editorClass);
+    /**
+     * Convert the given comma-delimited String to an array of the given component
+     * type. Elements of a primitive type without custom editor or converter are
+     * parsed straight from their offsets in the text, without creating Strings.
+     * Elements are not trimmed, for primitive and object types alike.
+     * @param propertyName name of the array property
+     * @param text the comma-delimited elements
+     * @param componentType the component type of the array to create
+     * @return the new array
+     * @throws BeansException if an element cannot be converted
+     */
+    private Object convertToTypedArray(String propertyName, String text, Class componentType)
+            throws BeansException {
+        if (!componentType.isPrimitive() || componentType == char.class ||
+                findCustomEditor(componentType, propertyName) != null || (this.converterRegistry != null &&
+                        this.converterRegistry.getConverter(String.class, componentType) != null)) {
+            return convertToTypedArray(propertyName, StringUtils.commaDelimitedListToStringArray(text), componentType);
+        }
+        // count first, to parse into an array of the exact size
+        Object result = Array.newInstance(componentType, StringUtils.tokenizeDelimitedList(text, ",", false, false, null));
+        PrimitiveArrayParser parser = new PrimitiveArrayParser(result);
+        try {
+            StringUtils.tokenizeDelimitedList(text, ",", false, false, parser);
+        }
+        catch (IllegalArgumentException ex) {
+            throw new TypeMismatchException(createPropertyChangeEvent(propertyName + "[" + parser.index + "]", null,
+                    text.substring(parser.start, parser.end)), componentType, ex);
+        }
+        return result;
+    }
+
+    /**
+     * Convert the given elements to an array of the given component type.
+     * Resolves the conversion of String elements once for all elements: a
+     * converter, a custom or default editor, or direct parsing into primitive
+     * arrays. Elements that are already of the component type are stored as-is.
+     * @param propertyName name of the array property
+     * @param elements the elements to convert
+     * @param componentType the component type of the array to create
+     * @return the new array
+     * @throws BeansException if an element cannot be converted
+     */
+    private Object convertToTypedArray(String propertyName, Object[] elements, Class componentType)
+            throws BeansException {
+        Object result = Array.newInstance(componentType, elements.length);
+        Object[] objectResult = (componentType.isPrimitive() ? null : (Object[]) result);
+        if (componentType.isArray()) {
+            // nested arrays: convert each element in turn
+            for (int i = 0; i < elements.length; i++) {
+                objectResult[i] = doTypeConversionIfNecessary(propertyName, propertyName + "[" + i + "]",
+                        null, elements[i], componentType);
+            }
+            return result;
+        }
+
+        PropertyEditor pe = findCustomEditor(componentType, propertyName);
+        Converter textConverter = null;
+        if (pe == null && this.converterRegistry != null && !componentType.isAssignableFrom(String.class)) {
+            textConverter = this.converterRegistry.getConverter(String.class, componentType);
+        }
+        boolean parseText = (pe == null && textConverter == null && componentType.isPrimitive() &&
+                componentType != char.class);
+        PropertyEditor textEditor = null;
+        boolean textEditorResolved = false;
+
+        for (int i = 0; i < elements.length; i++) {
+            Object element = elements[i];
+            if (element instanceof String && (pe != null || !componentType.isInstance(element))) {
+                String text = (String) element;
+                try {
+                    if (parseText) {
+                        setPrimitiveArrayElement(result, i, text, 0, text.length());
+                        continue;
+                    }
+                    Object value;
+                    if (textConverter != null) {
+                        value = textConverter.convert(text);
+                    }
+                    else {
+                        if (!textEditorResolved) {
+                            // shared by all elements, as editors are used one value at a time
+                            textEditor = (pe != null ? pe : findDefaultEditor(componentType));
+                            textEditorResolved = true;
+                        }
+                        if (textEditor == null) {
+                            throw new TypeMismatchException(
+                                    createPropertyChangeEvent(propertyName + "[" + i + "]", null, element), componentType);
+                        }
+                        textEditor.setAsText(text);
+                        value = textEditor.getValue();
+                    }
+                    Array.set(result, i, value);
+                }
+                catch (IllegalArgumentException ex) {
+                    throw new TypeMismatchException(
+                            createPropertyChangeEvent(propertyName + "[" + i + "]", null, element), componentType, ex);
+                }
+            }
+            else if (pe == null && objectResult != null && (element == null || componentType.isInstance(element))) {
+                objectResult[i] = element;
+            }
+            else {
+                Object value = doTypeConversionIfNecessary(propertyName, propertyName + "[" + i + "]",
+                        null, element, componentType);
+                Array.set(result, i, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse the given range of the given text and store it in the given primitive
+     * array, parsing like the JavaBeans editors of the primitive types. Plain
+     * decimal integers are parsed without creating a String.
+     * @throws IllegalArgumentException if the text cannot be parsed
+     */
+    private static void setPrimitiveArrayElement(Object array, int index, CharSequence text, int start, int end) {
+        boolean decimal = PropertyInvoker.isDecimal(text, start, end);
+        if (array instanceof int[]) {
+            ((int[]) array)[index] = (decimal ? (int) parseDecimal(text, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE) :
+                    Integer.decode(text.subSequence(start, end).toString()).intValue());
+        }
+        else if (array instanceof long[]) {
+            ((long[]) array)[index] = (decimal ? parseDecimal(text, start, end, Long.MIN_VALUE, Long.MAX_VALUE) :
+                    Long.decode(text.subSequence(start, end).toString()).longValue());
+        }
+        else if (array instanceof double[]) {
+            ((double[]) array)[index] = Double.parseDouble(text.subSequence(start, end).toString());
+        }
+        else if (array instanceof float[]) {
+            ((float[]) array)[index] = Float.parseFloat(text.subSequence(start, end).toString());
+        }
+        else if (array instanceof short[]) {
+            ((short[]) array)[index] = (decimal ? (short) parseDecimal(text, start, end, Short.MIN_VALUE, Short.MAX_VALUE) :
+                    Short.decode(text.subSequence(start, end).toString()).shortValue());
+        }
+        else if (array instanceof byte[]) {
+            ((byte[]) array)[index] = (decimal ? (byte) parseDecimal(text, start, end, Byte.MIN_VALUE, Byte.MAX_VALUE) :
+                    Byte.decode(text.subSequence(start, end).toString()).byteValue());
+        }
+        else if (regionEqualsIgnoreCase(text, start, end, "true")) {
+            ((boolean[]) array)[index] = true;
+        }
+        else if (regionEqualsIgnoreCase(text, start, end, "false")) {
+            ((boolean[]) array)[index] = false;
         }
         else {
-            return null;
+            throw new IllegalArgumentException("Invalid boolean value [" + text.subSequence(start, end) + "]");
+        }
+    }
+
+    /**
+     * Parse the given range of the given text, which is a plain decimal number,
+     * accumulating negatively like Long.parseLong to cover the full range.
+     * @throws NumberFormatException if the number is not within the given range
+     */
+    private static long parseDecimal(CharSequence text, int start, int end, long min, long max) {
+        boolean negative = (text.charAt(start) == '-');
+        int pos = (negative || text.charAt(start) == '+' ? start + 1 : start);
+        long limit = (negative ? min : -max);
+        long multmin = limit / 10;
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = Character.digit(text.charAt(pos), 10);
+            if (result < multmin || result * 10 < limit + digit) {
+                throw new NumberFormatException("Value out of range. Value:\"" + text.subSequence(start, end) + "\"");
+            }
+            result = result * 10 - digit;
         }
+        return (negative ? result : -result);
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence text, int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the elements of the given array, Collection or comma-delimited String.
+     */
+    private static Object[] toElementArray(Object value) {
+        if (value instanceof Object[]) {
+            return (Object[]) value;
+        }
+        else if (value instanceof Collection) {
+            return ((Collection) value).toArray();
+        }
+        else if (value instanceof String) {
+            return StringUtils.commaDelimitedListToStringArray((String) value);
+        }
+        else {
+            // primitive array
+            Object[] elements = new Object[Array.getLength(value)];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = Array.get(value, i);
+            }
+            return elements;
+        }
+    }
+
+    /**
+     * Create an empty Collection of the given type: an ArrayList for
+     * Collection and List, a LinkedHashSet for Set, a TreeSet for SortedSet.
+     * @return the new Collection, or null if the type is not supported
+     */
+    private static Collection createCollection(Class collectionType, int size) {
+        if (collectionType.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList(size);
+        }
+        else if (collectionType.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet(Math.max(size * 4 / 3 + 1, 16));
+        }
+        else if (collectionType.isAssignableFrom(TreeSet.class)) {
+            return new TreeSet();
+        }
+        return null;
+    }
+
+    /**
+     * Return the default or JavaBeans PropertyEditor for the given type.
+     * Created on first use by this BeanWrapper, and reused for subsequent
+     * conversions to the same type, as editors are used one value at a time.
+     * @param type the required type
+     * @return the PropertyEditor, or null if none
+     */
+    private PropertyEditor findDefaultEditor(Class type) {
+        PropertyEditor editor = null;
+        if (this.defaultEditorInstances != null) {
+            editor = (PropertyEditor) this.defaultEditorInstances.get(type);
+        }
+        if (editor == null) {
+            Object editorClass = defaultEditorClasses.get(type);
+            if (editorClass == NO_EDITOR) {
+                return null;
+            }
+            else if (editorClass == EDITOR_MANAGER_LOOKUP) {
+                editor = PropertyEditorManager.findEditor(type);
+            }
+            else {
+                editor = (PropertyEditor) BeanUtils.instantiateClass((Class) editorClass);
+            }
+            if (editor != null) {
+                if (this.defaultEditorInstances == null) {
+                    this.defaultEditorInstances = new HashMap();
+                }
+                this.defaultEditorInstances.put(type, editor);
+            }
+        }
+        return editor;
     }
 
 
@@ -780,9 +1343,10 @@ public class BeanWrapperImpl  implements BeanWrapper {
         if (propertyName == null) {
             throw new FatalBeanException("Can't find property descriptor for null property");
         }
-        if (isNestedProperty(propertyName)) {
-            BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-            return nestedBw.getPropertyDescriptor(getFinalPath(propertyName));
+        PropertyPath path = PropertyPath.forPath(propertyName);
+        if (path.isNested()) {
+            BeanWrapperImpl nestedBw = getBeanWrapperForPropertyPath(path);
+            return nestedBw.cachedIntrospectionResults.getPropertyDescriptor(path.getFinalToken().getPropertyName());
         }
         return this.cachedIntrospectionResults.getPropertyDescriptor(propertyName);
     }
@@ -846,4 +1410,33 @@ public class BeanWrapperImpl  implements BeanWrapper {
         }
         return sb.toString();
     }
+
+
+    /**
+     * TokenHandler that parses the tokens of a comma-delimited String into
+     * the consecutive elements of a primitive array, keeping track of the
+     * current token for error reporting.
+     */
+    private static class PrimitiveArrayParser implements TokenHandler {
+
+        private final Object array;
+
+        private int index = -1;
+
+        private int start;
+
+        private int end;
+
+        private PrimitiveArrayParser(Object array) {
+            this.array = array;
+        }
+
+        public void handleToken(CharSequence source, int start, int end) {
+            this.index++;
+            this.start = start;
+            this.end = end;
+            setPrimitiveArrayElement(this.array, this.index, source, start, end);
+        }
+    }
+
 }
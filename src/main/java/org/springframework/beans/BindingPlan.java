@@ -0,0 +1,74 @@
+package org.springframework.beans;
+
+/**
+ * Precompiled plan for binding a given set of property names to beans of
+ * a given class: for each property, in order, the PropertyInvoker of a simple
+ * writable property, or whether it is unknown, or needs to be set through
+ * general property path handling (nested or indexed/mapped properties).
+ *
+ * <p>Plans are compiled once per bean class and set of property names, and
+ * cached by CachedIntrospectionResults. Conversion is still done when applying
+ * a plan, as custom editors are registered per BeanWrapper.
+ *
+ * @see CachedIntrospectionResults#getBindingPlan
+ * @see BeanWrapperImpl#setPropertyValues(PropertyValues, boolean)
+ */
+final class BindingPlan {
+
+    /** Marker for properties that are not writable or do not exist */
+    static final Object NOT_WRITABLE = new Object();
+
+    /** Marker for properties to be set through property path handling */
+    static final Object PROPERTY_PATH = new Object();
+
+    private final String[] propertyNames;
+
+    /** PropertyInvoker or marker for each property name */
+    private final Object[] targets;
+
+    /**
+     * Compile a plan for the given property names.
+     * @param results the introspection results of the bean class
+     * @param propertyNames the names of the properties to bind, in order
+     */
+    BindingPlan(CachedIntrospectionResults results, String[] propertyNames) {
+        this.propertyNames = propertyNames;
+        this.targets = new Object[propertyNames.length];
+        for (int i = 0; i < propertyNames.length; i++) {
+            PropertyPath path = PropertyPath.forPath(propertyNames[i]);
+            if (path.isNested() || path.getFinalToken().getKey() != null) {
+                this.targets[i] = PROPERTY_PATH;
+            }
+            else if (!results.hasProperty(propertyNames[i])) {
+                this.targets[i] = NOT_WRITABLE;
+            }
+            else {
+                PropertyInvoker invoker = results.getPropertyInvoker(propertyNames[i]);
+                this.targets[i] = (invoker.getWriteMethod() != null ? (Object) invoker : NOT_WRITABLE);
+            }
+        }
+    }
+
+    /**
+     * Return the number of properties in this plan.
+     */
+    int getPropertyCount() {
+        return this.propertyNames.length;
+    }
+
+    /**
+     * Return the name of the property at the given position.
+     */
+    String getPropertyName(int index) {
+        return this.propertyNames[index];
+    }
+
+    /**
+     * Return the PropertyInvoker for the property at the given position,
+     * or one of the NOT_WRITABLE and PROPERTY_PATH markers.
+     */
+    Object getTarget(int index) {
+        return this.targets[index];
+    }
+
+}
@@ -1,41 +1,183 @@
 package org.springframework.beans;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ClassCache;
+import org.springframework.util.EvictionQueue;
 
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Created by arahansa on 2016-03-29.
+ *
+ * <p>Results are cached per class in a ClassCache, so that the cache does not
+ * keep classes, and thus their class loaders, from being garbage-collected.
+ * The number of cached classes can be limited, evicting results that have not
+ * been used since the last eviction round, oldest first.
  */
 @Slf4j
-final class CachedIntrospectionResults {
+public final class CachedIntrospectionResults {
 
-    /** Map keyed by class containing CachedIntrospectionResults */
-    private static HashMap classCache = new HashMap();
+    /** Maximum number of BindingPlans to cache per class */
+    private static final int MAX_BINDING_PLANS = 256;
+
+    /** Maximum number of CopyPlans to cache per target class */
+    private static final int MAX_COPY_PLANS = 64;
+
+    /** CacheEntry per class, holding its CachedIntrospectionResults */
+    private static final ClassCache classCache = new ClassCache() {
+        protected Object computeValue(Class type) {
+            return new CacheEntry();
+        }
+    };
+
+    /** Weak references to CacheEntries holding results, in caching order */
+    private static final EvictionQueue evictionQueue = new EvictionQueue() {
+        protected boolean checkUsedAndReset(Object ref) {
+            CacheEntry entry = (CacheEntry) ((Reference) ref).get();
+            if (entry != null && entry.used) {
+                entry.used = false;
+                return true;
+            }
+            return false;
+        }
+
+        protected void doEvict(Object ref) {
+            // null if the class has been garbage-collected along with its results
+            CacheEntry entry = (CacheEntry) ((Reference) ref).get();
+            if (entry != null) {
+                entry.results = null;
+                cacheEvictions.increment();
+            }
+        }
+    };
+
+    /** Queue of references to CacheEntries of garbage-collected classes */
+    private static final ReferenceQueue collectedEntries = new ReferenceQueue();
+
+    private static final LongAdder cacheHits = new LongAdder();
+
+    private static final LongAdder cacheMisses = new LongAdder();
+
+    private static final LongAdder cacheEvictions = new LongAdder();
+
+    /** Maximum number of cached classes, or 0 for no limit */
+    private static volatile int cacheLimit = 0;
+
+    /**
+     * Set the maximum number of classes to cache introspection results for.
+     * Default is 0, meaning no limit.
+     */
+    public static void setCacheLimit(int cacheLimit) {
+        if (cacheLimit < 0) {
+            throw new IllegalArgumentException("cacheLimit must not be negative");
+        }
+        CachedIntrospectionResults.cacheLimit = cacheLimit;
+        evictIfNecessary();
+    }
+
+    /**
+     * Return the maximum number of classes to cache introspection results for,
+     * or 0 for no limit.
+     */
+    public static int getCacheLimit() {
+        return cacheLimit;
+    }
 
     /**
-     * We might use this from the EJB tier, so we don't want to use synchronization.
-     * Object references are atomic, so we can live with doing the occasional
-     * unnecessary lookup at startup only.
+     * Return the approximate number of classes currently cached.
+     */
+    public static int getCacheSize() {
+        return evictionQueue.size();
+    }
+
+    /**
+     * Return the number of lookups that found cached introspection results.
+     */
+    public static long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Return the number of lookups that had to introspect the class.
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Return the number of cached introspection results evicted due to the cache limit.
+     */
+    public static long getCacheEvictions() {
+        return cacheEvictions.sum();
+    }
+
+    /**
+     * Return the introspection results for the given class, introspecting it
+     * on first access. Safe for concurrent use: a class is introspected once,
+     * unless its results have been evicted in the meantime.
      */
     protected static CachedIntrospectionResults forClass(Class clazz) throws BeansException {
-        Object results = classCache.get(clazz);
+        CacheEntry entry = (CacheEntry) classCache.get(clazz);
+        CachedIntrospectionResults results = entry.results;
         if (results == null) {
-            // can throw BeansException
-            results = new CachedIntrospectionResults(clazz);
-            classCache.put(clazz, results);
-        }
-        else {
-            if (log.isDebugEnabled()) {
-                log.debug("Using cached introspection results for class " + clazz.getName());
+            synchronized (entry) {
+                results = entry.results;
+                if (results == null) {
+                    cacheMisses.increment();
+                    // can throw BeansException
+                    results = new CachedIntrospectionResults(clazz);
+                    entry.results = results;
+                    evictionQueue.add(new WeakReference(entry, collectedEntries));
+                }
             }
+            removeCollectedEntries();
+            evictIfNecessary();
+            return results;
+        }
+        cacheHits.increment();
+        // only written when needed, to keep concurrent lookups from contending
+        if (cacheLimit != 0 && !entry.used) {
+            entry.used = true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Using cached introspection results for class " + clazz.getName());
+        }
+        return results;
+    }
+
+    /**
+     * Stop tracking entries of classes that have been garbage-collected.
+     */
+    private static void removeCollectedEntries() {
+        Reference ref;
+        while ((ref = collectedEntries.poll()) != null) {
+            evictionQueue.remove(ref);
+        }
+    }
+
+    /**
+     * Evict cached results while the cache exceeds its limit, giving results
+     * used since they were cached or last considered for eviction a second chance.
+     */
+    private static void evictIfNecessary() {
+        int limit = cacheLimit;
+        if (limit != 0) {
+            evictionQueue.evict(limit);
         }
-        return (CachedIntrospectionResults) results;
     }
 
 
@@ -44,6 +186,18 @@ final class CachedIntrospectionResults {
     /** Property descriptors keyed by property name */
     private Map propertyDescriptorMap;
 
+    /** PropertyInvokers keyed by property name, created on first access */
+    private final Map propertyInvokerMap = new ConcurrentHashMap();
+
+    /** BindingPlans keyed by List of property names, created on first access */
+    private final Map bindingPlanMap = new ConcurrentHashMap();
+
+    /**
+     * CopyPlans with this class as target, keyed by List of source class
+     * and sorted ignored property names, created on first access.
+     */
+    private final Map copyPlanMap = new ConcurrentHashMap();
+
     /**
      * Create new CachedIntrospectionResults instance fot the given class.
      */
@@ -83,6 +237,102 @@ final class CachedIntrospectionResults {
         return pd;
     }
 
+    /**
+     * Return whether the class has a property with the given name.
+     */
+    protected boolean hasProperty(String propertyName) {
+        return this.propertyDescriptorMap.containsKey(propertyName);
+    }
 
+    /**
+     * Return the PropertyInvoker for the given property, creating it on first access.
+     * @param propertyName the name of the property
+     * @return the PropertyInvoker for reading and writing the property
+     * @throws BeansException if there is no such property
+     */
+    protected PropertyInvoker getPropertyInvoker(String propertyName) throws BeansException {
+        PropertyInvoker invoker = (PropertyInvoker) this.propertyInvokerMap.get(propertyName);
+        if (invoker == null) {
+            // can throw BeansException; concurrent creation is harmless
+            invoker = new PropertyInvoker(getPropertyDescriptor(propertyName));
+            this.propertyInvokerMap.put(propertyName, invoker);
+        }
+        return invoker;
+    }
+
+    /**
+     * Return the PropertyInvoker for the given property, creating it on first access.
+     * In contrast to getPropertyInvoker, does not throw an exception for unknown
+     * properties, e.g. property paths: for probing whether a fast path applies.
+     * @param propertyName the name of the property, or a property path
+     * @return the PropertyInvoker, or null if there is no such simple property
+     */
+    protected PropertyInvoker findPropertyInvoker(String propertyName) {
+        PropertyInvoker invoker = (PropertyInvoker) this.propertyInvokerMap.get(propertyName);
+        if (invoker == null && hasProperty(propertyName)) {
+            invoker = getPropertyInvoker(propertyName);
+        }
+        return invoker;
+    }
+
+    /**
+     * Return the BindingPlan for the given property names, compiling it on first
+     * access. Stops caching further plans once MAX_BINDING_PLANS plans are cached
+     * for the class, as property names may come from arbitrary request parameters.
+     * @param propertyNames the names of the properties to bind, in order
+     * (not to be modified afterwards)
+     * @return the BindingPlan
+     */
+    protected BindingPlan getBindingPlan(String[] propertyNames) {
+        List key = Arrays.asList(propertyNames);
+        BindingPlan plan = (BindingPlan) this.bindingPlanMap.get(key);
+        if (plan == null) {
+            plan = new BindingPlan(this, propertyNames);
+            if (this.bindingPlanMap.size() < MAX_BINDING_PLANS) {
+                this.bindingPlanMap.put(key, plan);
+            }
+        }
+        return plan;
+    }
+
+
+    /**
+     * Return the CopyPlan for copying beans of the given source class into beans
+     * of this class, compiling it on first access.
+     * @param sourceClass the class of the source beans: this class or a superclass
+     * @param ignoreProperties names of properties not to copy, or null
+     * @return the CopyPlan
+     * @throws IllegalArgumentException if this class is not a subclass of the source class
+     */
+    protected CopyPlan getCopyPlan(Class sourceClass, String[] ignoreProperties) {
+        if (!sourceClass.isAssignableFrom(getBeanClass())) {
+            throw new IllegalArgumentException("Target must an instance of source");
+        }
+        List key = new ArrayList();
+        key.add(sourceClass);
+        if (ignoreProperties != null) {
+            // the order of ignored properties and duplicates do not affect the plan
+            key.addAll(new TreeSet(Arrays.asList(ignoreProperties)));
+        }
+        CopyPlan plan = (CopyPlan) this.copyPlanMap.get(key);
+        if (plan == null) {
+            plan = new CopyPlan(forClass(sourceClass), this, ignoreProperties);
+            if (this.copyPlanMap.size() < MAX_COPY_PLANS) {
+                this.copyPlanMap.put(key, plan);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Holder for the introspection results of a class, kept with the class itself.
+     */
+    private static class CacheEntry {
+
+        private volatile CachedIntrospectionResults results;
+
+        /** Whether the results have been used since last considered for eviction */
+        private volatile boolean used;
+    }
 
 }
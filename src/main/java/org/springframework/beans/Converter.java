@@ -0,0 +1,25 @@
+package org.springframework.beans;
+
+/**
+ * Converts values of a given source type to a given target type.
+ * Registered with a ConverterRegistry for a pair of source and target type.
+ *
+ * <p>In contrast to PropertyEditors, Converters are stateless: a single
+ * instance is shared by all BeanWrappers and bean factories it is registered
+ * with, and may be called concurrently without synchronization.
+ *
+ * @see ConverterRegistry#addConverter
+ * @see BeanWrapperImpl#doTypeConversionIfNecessary
+ */
+public interface Converter {
+
+    /**
+     * Convert the given value to the target type of this Converter.
+     * @param source the value to convert, never null
+     * @return the converted value, an instance of the target type
+     * (or its wrapper class, for a primitive target type)
+     * @throws IllegalArgumentException if the value cannot be converted
+     */
+    Object convert(Object source) throws IllegalArgumentException;
+
+}
@@ -0,0 +1,158 @@
+package org.springframework.beans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe registry of Converters keyed by source and target type.
+ *
+ * <p>A Converter registered for a source type also applies to its subclasses
+ * and implementations; the most specific one is chosen, superclasses before
+ * interfaces. The Converter resolved for an actual pair of types is cached,
+ * including the absence of one, so that repeated conversions take a single
+ * map lookup. Primitive types are treated like their wrapper classes.
+ *
+ * @see Converter
+ * @see BeanWrapper#setConverterRegistry
+ */
+public class ConverterRegistry {
+
+    /** Marker for type pairs without Converter */
+    private static final Object NO_CONVERTER = new Object();
+
+    private static final Map primitiveWrapperTypes = new HashMap();
+
+    static {
+        primitiveWrapperTypes.put(boolean.class, Boolean.class);
+        primitiveWrapperTypes.put(byte.class, Byte.class);
+        primitiveWrapperTypes.put(char.class, Character.class);
+        primitiveWrapperTypes.put(short.class, Short.class);
+        primitiveWrapperTypes.put(int.class, Integer.class);
+        primitiveWrapperTypes.put(long.class, Long.class);
+        primitiveWrapperTypes.put(float.class, Float.class);
+        primitiveWrapperTypes.put(double.class, Double.class);
+    }
+
+    /** Registered Converters keyed by ConvertiblePair */
+    private final Map converters = new ConcurrentHashMap();
+
+    /**
+     * Resolved Converters (or NO_CONVERTER marker) keyed by ConvertiblePair.
+     * Replaced rather than cleared on registration, so that a resolution
+     * that raced with a registration can only end up in the discarded map.
+     */
+    private volatile Map resolvedConverters = new ConcurrentHashMap();
+
+    /**
+     * Register the given Converter for the given source and target type,
+     * replacing any Converter registered for the same types.
+     * @param sourceType the type of values to convert
+     * @param targetType the type to convert to
+     * @param converter the Converter to use
+     */
+    public void addConverter(Class sourceType, Class targetType, Converter converter) {
+        if (sourceType == null || targetType == null || converter == null) {
+            throw new IllegalArgumentException("sourceType, targetType and converter are required");
+        }
+        this.converters.put(new ConvertiblePair(wrap(sourceType), wrap(targetType)), converter);
+        // resolution may have changed for any subtype
+        this.resolvedConverters = new ConcurrentHashMap();
+    }
+
+    /**
+     * Return whether any Converter has been registered.
+     */
+    public boolean isEmpty() {
+        return this.converters.isEmpty();
+    }
+
+    /**
+     * Return the Converter to use for converting values of the given source
+     * type to the given target type.
+     * @param sourceType the actual type of the value to convert
+     * @param targetType the type to convert to
+     * @return the Converter, or null if none applies
+     */
+    public Converter getConverter(Class sourceType, Class targetType) {
+        if (this.converters.isEmpty()) {
+            return null;
+        }
+        // resolve against the registrations visible when taking this map
+        Map resolvedConverters = this.resolvedConverters;
+        ConvertiblePair pair = new ConvertiblePair(sourceType, wrap(targetType));
+        Object converter = resolvedConverters.get(pair);
+        if (converter == null) {
+            converter = findConverter(sourceType, pair.targetType);
+            if (converter == null) {
+                converter = NO_CONVERTER;
+            }
+            resolvedConverters.put(pair, converter);
+        }
+        return (converter != NO_CONVERTER ? (Converter) converter : null);
+    }
+
+    /**
+     * Find the most specific registered Converter, walking the class
+     * hierarchy of the source type and then its interfaces.
+     */
+    private Converter findConverter(Class sourceType, Class targetType) {
+        List interfaces = new ArrayList();
+        for (Class clazz = wrap(sourceType); clazz != null; clazz = clazz.getSuperclass()) {
+            Converter converter = (Converter) this.converters.get(new ConvertiblePair(clazz, targetType));
+            if (converter != null) {
+                return converter;
+            }
+            interfaces.addAll(Arrays.asList(clazz.getInterfaces()));
+        }
+        for (int i = 0; i < interfaces.size(); i++) {
+            Class ifc = (Class) interfaces.get(i);
+            Converter converter = (Converter) this.converters.get(new ConvertiblePair(ifc, targetType));
+            if (converter != null) {
+                return converter;
+            }
+            interfaces.addAll(Arrays.asList(ifc.getInterfaces()));
+        }
+        return null;
+    }
+
+    private static Class wrap(Class type) {
+        Class wrapperType = (Class) primitiveWrapperTypes.get(type);
+        return (wrapperType != null ? wrapperType : type);
+    }
+
+
+    /**
+     * Key of a source and target type.
+     */
+    private static class ConvertiblePair {
+
+        private final Class sourceType;
+
+        private final Class targetType;
+
+        private ConvertiblePair(Class sourceType, Class targetType) {
+            this.sourceType = sourceType;
+            this.targetType = targetType;
+        }
+
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ConvertiblePair)) {
+                return false;
+            }
+            ConvertiblePair otherPair = (ConvertiblePair) other;
+            return (this.sourceType == otherPair.sourceType && this.targetType == otherPair.targetType);
+        }
+
+        public int hashCode() {
+            return this.sourceType.hashCode() * 29 + this.targetType.hashCode();
+        }
+    }
+
+}
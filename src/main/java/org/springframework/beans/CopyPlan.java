@@ -0,0 +1,113 @@
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precompiled plan for copying the properties of beans of a given source class
+ * into beans of a given target class, ignoring given properties: pairs the
+ * read accessor of each source property with the write accessor of the same
+ * target property, so that copying involves no name lookups.
+ *
+ * <p>Plans are compiled once per source class, target class and ignored
+ * properties, and cached by CachedIntrospectionResults of the target class.
+ *
+ * @see CachedIntrospectionResults#getCopyPlan
+ * @see BeanUtils#copyProperties(Object, Object, String[])
+ */
+final class CopyPlan {
+
+    private final String[] propertyNames;
+
+    private final PropertyInvoker[] sourceInvokers;
+
+    private final PropertyInvoker[] targetInvokers;
+
+    /**
+     * Compile a plan for the given classes.
+     * @param sourceResults the introspection results of the source class
+     * @param targetResults the introspection results of the target class
+     * @param ignoreProperties names of properties not to copy, or null
+     */
+    CopyPlan(CachedIntrospectionResults sourceResults, CachedIntrospectionResults targetResults,
+             String[] ignoreProperties) {
+        List ignoreList = (ignoreProperties != null) ? Arrays.asList(ignoreProperties) : null;
+        List names = new ArrayList();
+        List sourceInvokerList = new ArrayList();
+        List targetInvokerList = new ArrayList();
+        PropertyDescriptor[] pds = sourceResults.getBeanInfo().getPropertyDescriptors();
+        for (int i = 0; i < pds.length; i++) {
+            String name = pds[i].getName();
+            if (!targetResults.hasProperty(name) || (ignoreList != null && ignoreList.contains(name))) {
+                continue;
+            }
+            PropertyInvoker targetInvoker = targetResults.getPropertyInvoker(name);
+            if (targetInvoker.getWriteMethod() != null && targetInvoker.getReadMethod() != null) {
+                names.add(name);
+                sourceInvokerList.add(sourceResults.getPropertyInvoker(name));
+                targetInvokerList.add(targetInvoker);
+            }
+        }
+        this.propertyNames = (String[]) names.toArray(new String[names.size()]);
+        this.sourceInvokers = (PropertyInvoker[]) sourceInvokerList.toArray(new PropertyInvoker[names.size()]);
+        this.targetInvokers = (PropertyInvoker[]) targetInvokerList.toArray(new PropertyInvoker[names.size()]);
+    }
+
+    /**
+     * Copy the properties of the given source bean into the given target bean.
+     * Reads all source properties before writing any, so that a failing getter
+     * leaves the target untouched.
+     * @param source the source bean, an instance of the plan's source class
+     * @param target the target bean, an instance of the plan's target class
+     * @throws BeansException if a getter failed, or with the failures of setters
+     * as PropertyAccessExceptionsException
+     */
+    void copy(Object source, Object target) throws BeansException {
+        Object[] values = new Object[this.propertyNames.length];
+        for (int i = 0; i < this.propertyNames.length; i++) {
+            if (this.sourceInvokers[i].getReadMethod() == null) {
+                throw new FatalBeanException("Cannot get property '" + this.propertyNames[i] + "': not readable", null);
+            }
+            try {
+                values[i] = this.sourceInvokers[i].read(source);
+            }
+            catch (InvocationTargetException ex) {
+                throw new FatalBeanException("Getter for property '" + this.propertyNames[i] + "' threw exception", ex);
+            }
+            catch (IllegalAccessException ex) {
+                throw new FatalBeanException("Illegal attempt to get property '" + this.propertyNames[i] +
+                        "' threw exception", ex);
+            }
+        }
+
+        BeanWrapperImpl targetBw = new BeanWrapperImpl(target);
+        List propertyAccessExceptions = null;
+        for (int i = 0; i < this.propertyNames.length; i++) {
+            try {
+                targetBw.setPropertyValue(this.propertyNames[i], this.targetInvokers[i], values[i]);
+            }
+            catch (TypeMismatchException ex) {
+                if (propertyAccessExceptions == null) {
+                    propertyAccessExceptions = new ArrayList();
+                }
+                propertyAccessExceptions.add(ex);
+            }
+            catch (MethodInvocationException ex) {
+                if (propertyAccessExceptions == null) {
+                    propertyAccessExceptions = new ArrayList();
+                }
+                propertyAccessExceptions.add(ex);
+            }
+        }
+
+        // if we encountered individual exceptions, throw the composite exception
+        if (propertyAccessExceptions != null) {
+            Object[] paeArray = propertyAccessExceptions.toArray(new PropertyAccessException[propertyAccessExceptions.size()]);
+            throw new PropertyAccessExceptionsException(targetBw, (PropertyAccessException[]) paeArray);
+        }
+    }
+
+}
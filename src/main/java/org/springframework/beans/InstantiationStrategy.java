@@ -0,0 +1,32 @@
+package org.springframework.beans;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Strategy interface for creating instances through a given constructor.
+ * Used by BeanUtils for all bean instantiation, and thus by BeanWrapperImpl
+ * and bean factories.
+ *
+ * <p>Implementations are expected to be thread-safe, and may prepare and
+ * cache an efficient way of invoking each constructor on first use.
+ *
+ * @see BeanUtils#setInstantiationStrategy
+ * @see MethodHandleInstantiationStrategy
+ */
+public interface InstantiationStrategy {
+
+    /**
+     * Create a new instance through the given constructor.
+     * @param constructor the constructor to invoke
+     * @param args the constructor arguments
+     * @return the new instance
+     * @throws InstantiationException if the declaring class is abstract
+     * @throws IllegalAccessException if the constructor is not accessible
+     * @throws IllegalArgumentException if the arguments do not match the constructor
+     * @throws InvocationTargetException if the constructor threw an exception
+     */
+    Object instantiate(Constructor constructor, Object[] args)
+            throws InstantiationException, IllegalAccessException, InvocationTargetException;
+
+}
@@ -0,0 +1,118 @@
+package org.springframework.beans;
+
+import org.springframework.util.ClassCache;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default InstantiationStrategy: invokes constructors through MethodHandles,
+ * avoiding the access checks and argument handling of reflective invocation
+ * on every call. The way of invoking each constructor is chosen once, on its
+ * first use, and cached per declaring class in a ClassCache so that it does
+ * not prevent classes or their ClassLoaders from being garbage-collected.
+ *
+ * <p>Falls back to reflection for constructors that are not accessible
+ * through a public lookup, e.g. of non-public classes, for abstract classes,
+ * and for arguments that are not assignable as-is, which reflection may still
+ * accept through widening conversions, e.g. an Integer for a long parameter.
+ * Anything thrown by an invoked MethodHandle, including Errors, is wrapped in
+ * an InvocationTargetException, so that failures are reported the same way
+ * whichever way a constructor is invoked. PropertyInvoker follows the same rules
+ * for property accessors.
+ *
+ * @see BeanUtils#instantiateClass(Constructor, Object[])
+ * @see PropertyInvoker
+ */
+public class MethodHandleInstantiationStrategy implements InstantiationStrategy {
+
+    /** Marker for constructors to be invoked through reflection */
+    private static final Object REFLECTION = new Object();
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /** Map of MethodHandle (or REFLECTION marker) keyed by Constructor, per declaring class */
+    private final ClassCache constructorHandles = new ClassCache() {
+        protected Object computeValue(Class type) {
+            return new ConcurrentHashMap();
+        }
+    };
+
+    public Object instantiate(Constructor constructor, Object[] args)
+            throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        Object handle = getHandle(constructor);
+        if (handle == REFLECTION) {
+            return constructor.newInstance(args);
+        }
+        Class[] parameterTypes = ((ConstructorHandle) handle).parameterTypes;
+        int nrOfArgs = (args != null ? args.length : 0);
+        if (nrOfArgs != parameterTypes.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        for (int i = 0; i < nrOfArgs; i++) {
+            if (!BeanUtils.isAssignable(parameterTypes[i], args[i])) {
+                // let reflection widen the arguments or report the mismatch
+                return constructor.newInstance(args);
+            }
+        }
+        try {
+            return (Object) ((ConstructorHandle) handle).methodHandle.invokeExact(args != null ? args : NO_ARGS);
+        }
+        catch (Throwable ex) {
+            // arguments have been checked: the constructor itself threw the exception
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    private Object getHandle(Constructor constructor) {
+        Map handles = (Map) this.constructorHandles.get(constructor.getDeclaringClass());
+        Object handle = handles.get(constructor);
+        if (handle == null) {
+            handle = createHandle(constructor);
+            handles.put(constructor, handle);
+        }
+        return handle;
+    }
+
+    private Object createHandle(Constructor constructor) {
+        if (Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+            return REFLECTION;
+        }
+        try {
+            Class[] parameterTypes = constructor.getParameterTypes();
+            MethodHandle methodHandle = MethodHandles.publicLookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, parameterTypes.length).asType(SPREAD_TYPE);
+            return new ConstructorHandle(methodHandle, parameterTypes);
+        }
+        catch (IllegalAccessException ex) {
+            // not publicly accessible
+            return REFLECTION;
+        }
+    }
+
+
+    /**
+     * MethodHandle taking the constructor arguments as Object array,
+     * along with the parameter types to check arguments against.
+     */
+    private static class ConstructorHandle {
+
+        private final MethodHandle methodHandle;
+
+        private final Class[] parameterTypes;
+
+        private ConstructorHandle(MethodHandle methodHandle, Class[] parameterTypes) {
+            this.methodHandle = methodHandle;
+            this.parameterTypes = parameterTypes;
+        }
+    }
+
+}
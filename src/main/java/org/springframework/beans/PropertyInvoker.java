@@ -0,0 +1,362 @@
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invokes the read and write methods of a bean property. Uses MethodHandles
+ * adapted to plain Object signatures, avoiding the access checks, argument
+ * arrays and exception wrapping of reflective invocation on every access.
+ * Falls back to reflection and reports failures like reflection in the same
+ * cases as MethodHandleInstantiationStrategy does for constructors.
+ *
+ * <p>Created once per property and cached by CachedIntrospectionResults.
+ *
+ * @see CachedIntrospectionResults#getPropertyInvoker
+ */
+final class PropertyInvoker {
+
+    private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType WRITE_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final PropertyDescriptor propertyDescriptor;
+
+    private final Method readMethod;
+
+    private final Method writeMethod;
+
+    private final Class propertyType;
+
+    /** Handle for the read method, or null if none or not publicly accessible */
+    private final MethodHandle readHandle;
+
+    /** Handle for the write method, or null if none or not publicly accessible */
+    private final MethodHandle writeHandle;
+
+    /** Handle for the read method returning the primitive value unboxed, or null */
+    private final MethodHandle primitiveReadHandle;
+
+    /** Handle for the write method taking the primitive value unboxed, or null */
+    private final MethodHandle primitiveWriteHandle;
+
+    PropertyInvoker(PropertyDescriptor pd) {
+        this.propertyDescriptor = pd;
+        this.readMethod = pd.getReadMethod();
+        this.writeMethod = pd.getWriteMethod();
+        this.propertyType = pd.getPropertyType();
+        this.readHandle = createHandle(this.readMethod, READ_TYPE);
+        this.writeHandle = createHandle(this.writeMethod, WRITE_TYPE);
+        if (this.propertyType == int.class || this.propertyType == long.class ||
+                this.propertyType == double.class || this.propertyType == boolean.class) {
+            this.primitiveReadHandle = createHandle(this.readMethod,
+                    MethodType.methodType(this.propertyType, Object.class));
+            this.primitiveWriteHandle = createHandle(this.writeMethod,
+                    MethodType.methodType(void.class, Object.class, this.propertyType));
+        }
+        else {
+            this.primitiveReadHandle = null;
+            this.primitiveWriteHandle = null;
+        }
+    }
+
+    private static MethodHandle createHandle(Method method, MethodType type) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(type);
+        }
+        catch (IllegalAccessException ex) {
+            // not publicly accessible: use reflection
+            return null;
+        }
+    }
+
+    /**
+     * Return the descriptor of the property.
+     */
+    public PropertyDescriptor getPropertyDescriptor() {
+        return propertyDescriptor;
+    }
+
+    /**
+     * Return the type of the property, or null for indexed-only properties.
+     */
+    public Class getPropertyType() {
+        return propertyType;
+    }
+
+    /**
+     * Return the read method of the property, or null if not readable.
+     */
+    public Method getReadMethod() {
+        return readMethod;
+    }
+
+    /**
+     * Return the write method of the property, or null if not writable.
+     */
+    public Method getWriteMethod() {
+        return writeMethod;
+    }
+
+    /**
+     * Return whether the given value can be passed to the write method as-is,
+     * without any type conversion. Arrays are always converted, element by element.
+     * @param value the value to check
+     */
+    public boolean isAssignableWithoutConversion(Object value) {
+        return (this.propertyType != null && !this.propertyType.isArray() &&
+                BeanUtils.isAssignable(this.propertyType, value));
+    }
+
+    /**
+     * Invoke the read method on the given bean.
+     * @param bean the bean to read the property of
+     * @return the property value
+     * @throws InvocationTargetException if the read method threw an exception
+     * @throws IllegalAccessException if the read method is not accessible
+     */
+    public Object read(Object bean) throws InvocationTargetException, IllegalAccessException {
+        if (this.readHandle == null) {
+            return this.readMethod.invoke(bean, (Object[]) null);
+        }
+        try {
+            return (Object) this.readHandle.invokeExact(bean);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the write method on the given bean.
+     * @param bean the bean to set the property on
+     * @param value the new value, already converted to the property type
+     * @throws InvocationTargetException if the write method threw an exception
+     * @throws IllegalAccessException if the write method is not accessible
+     * @throws IllegalArgumentException if the value does not match the property type
+     */
+    public void write(Object bean, Object value) throws InvocationTargetException, IllegalAccessException {
+        if (this.writeHandle == null) {
+            this.writeMethod.invoke(bean, new Object[] {value});
+            return;
+        }
+        if (!BeanUtils.isAssignable(this.propertyType, value)) {
+            // see class comment
+            this.writeMethod.invoke(bean, new Object[] {value});
+            return;
+        }
+        try {
+            this.writeHandle.invokeExact(bean, value);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the read method of an int property without boxing.
+     * Only to be called for properties of type int.
+     */
+    public int readInt(Object bean) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveReadHandle == null) {
+            return ((Integer) read(bean)).intValue();
+        }
+        try {
+            return (int) this.primitiveReadHandle.invokeExact(bean);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the read method of a long property without boxing.
+     * Only to be called for properties of type long.
+     */
+    public long readLong(Object bean) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveReadHandle == null) {
+            return ((Long) read(bean)).longValue();
+        }
+        try {
+            return (long) this.primitiveReadHandle.invokeExact(bean);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the read method of a double property without boxing.
+     * Only to be called for properties of type double.
+     */
+    public double readDouble(Object bean) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveReadHandle == null) {
+            return ((Double) read(bean)).doubleValue();
+        }
+        try {
+            return (double) this.primitiveReadHandle.invokeExact(bean);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the read method of a boolean property without boxing.
+     * Only to be called for properties of type boolean.
+     */
+    public boolean readBoolean(Object bean) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveReadHandle == null) {
+            return ((Boolean) read(bean)).booleanValue();
+        }
+        try {
+            return (boolean) this.primitiveReadHandle.invokeExact(bean);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the write method of an int property without boxing.
+     * Only to be called for properties of type int.
+     */
+    public void writeInt(Object bean, int value) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveWriteHandle == null) {
+            write(bean, Integer.valueOf(value));
+            return;
+        }
+        try {
+            this.primitiveWriteHandle.invokeExact(bean, value);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the write method of a long property without boxing.
+     * Only to be called for properties of type long.
+     */
+    public void writeLong(Object bean, long value) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveWriteHandle == null) {
+            write(bean, Long.valueOf(value));
+            return;
+        }
+        try {
+            this.primitiveWriteHandle.invokeExact(bean, value);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the write method of a double property without boxing.
+     * Only to be called for properties of type double.
+     */
+    public void writeDouble(Object bean, double value) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveWriteHandle == null) {
+            write(bean, Double.valueOf(value));
+            return;
+        }
+        try {
+            this.primitiveWriteHandle.invokeExact(bean, value);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Invoke the write method of a boolean property without boxing.
+     * Only to be called for properties of type boolean.
+     */
+    public void writeBoolean(Object bean, boolean value) throws InvocationTargetException, IllegalAccessException {
+        if (this.primitiveWriteHandle == null) {
+            write(bean, Boolean.valueOf(value));
+            return;
+        }
+        try {
+            this.primitiveWriteHandle.invokeExact(bean, value);
+        }
+        catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    /**
+     * Return whether writeText can parse text for this property,
+     * i.e. whether it is of type int, long, double or boolean.
+     */
+    public boolean isTextWritable() {
+        return (this.primitiveWriteHandle != null);
+    }
+
+    /**
+     * Parse the given text and invoke the write method of a primitive property
+     * with it, without boxing. Parses like the corresponding JavaBeans editors:
+     * decimal, hex and octal numbers for int and long, "true" and "false" in any
+     * case for boolean. Only to be called if isTextWritable returns true.
+     * @throws IllegalArgumentException if the text cannot be parsed
+     */
+    public void writeText(Object bean, String text) throws InvocationTargetException, IllegalAccessException {
+        if (this.propertyType == int.class) {
+            writeInt(bean, isDecimal(text) ? Integer.parseInt(text) : Integer.decode(text).intValue());
+        }
+        else if (this.propertyType == long.class) {
+            writeLong(bean, isDecimal(text) ? Long.parseLong(text) : Long.decode(text).longValue());
+        }
+        else if (this.propertyType == double.class) {
+            writeDouble(bean, Double.parseDouble(text));
+        }
+        else if ("true".equalsIgnoreCase(text)) {
+            writeBoolean(bean, true);
+        }
+        else if ("false".equalsIgnoreCase(text)) {
+            writeBoolean(bean, false);
+        }
+        else {
+            throw new IllegalArgumentException("Invalid boolean value [" + text + "]");
+        }
+    }
+
+    /**
+     * Determine whether the given text is a plain decimal number, which
+     * parses the same with parseInt/parseLong as with decode: optional sign,
+     * then digits without leading zero.
+     */
+    static boolean isDecimal(String text) {
+        return isDecimal(text, 0, text.length());
+    }
+
+    /**
+     * Determine whether the given range of the given text is a plain decimal number.
+     * @see #isDecimal(String)
+     */
+    static boolean isDecimal(CharSequence text, int start, int end) {
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            start++;
+        }
+        if (start >= end) {
+            return false;
+        }
+        if (text.charAt(start) == '0' && end > start + 1) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,211 @@
+package org.springframework.beans;
+
+import org.springframework.util.EvictionQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable parsed form of a property path like "orders[3].customer.address.city":
+ * one Token per nested property, each holding the property name and the key
+ * of an indexed or mapped property, if any.
+ *
+ * <p>Parsed paths are shared by all BeanWrapperImpl instances through a bounded
+ * cache keyed by the path String, so that a path is parsed once however often
+ * it is accessed. When the cache is full, paths that have not been used since
+ * they were last considered for eviction are evicted, oldest first.
+ *
+ * @see BeanWrapperImpl#getPropertyValue(String)
+ * @see BeanWrapperImpl#setPropertyValue(String, Object)
+ */
+final class PropertyPath {
+
+    /** Maximum number of parsed paths to cache */
+    private static final int CACHE_LIMIT = 8192;
+
+    /** Parsed PropertyPaths keyed by path String */
+    private static final Map pathCache = new ConcurrentHashMap();
+
+    /** Cached path Strings in caching order */
+    private static final EvictionQueue evictionQueue = new EvictionQueue() {
+        protected boolean checkUsedAndReset(Object path) {
+            PropertyPath propertyPath = (PropertyPath) pathCache.get(path);
+            if (propertyPath != null && propertyPath.used) {
+                propertyPath.used = false;
+                return true;
+            }
+            return false;
+        }
+
+        protected void doEvict(Object path) {
+            pathCache.remove(path);
+        }
+    };
+
+    /**
+     * Return the parsed form of the given property path, parsing it on first access.
+     * @param path the property path, which may be nested
+     * @return the parsed path
+     */
+    static PropertyPath forPath(String path) {
+        PropertyPath propertyPath = (PropertyPath) pathCache.get(path);
+        if (propertyPath != null) {
+            propertyPath.used = true;
+            return propertyPath;
+        }
+        propertyPath = new PropertyPath(path);
+        if (pathCache.put(path, propertyPath) == null) {
+            evictionQueue.add(path);
+            evictionQueue.evict(CACHE_LIMIT);
+        }
+        return propertyPath;
+    }
+
+    /**
+     * Parse a single, non-nested property name like "orders[3]" or "map['key']".
+     * Not cached: for property names built at runtime.
+     * @param propertyName the property name
+     * @return the parsed token
+     */
+    static Token parseToken(String propertyName) {
+        String actualName = propertyName;
+        String key = null;
+        int keyStart = propertyName.indexOf('[');
+        if (keyStart != -1 && propertyName.endsWith("]")) {
+            actualName = propertyName.substring(0, keyStart);
+            key = propertyName.substring(keyStart + 1, propertyName.length() - 1);
+            if (key.startsWith("'") && key.endsWith("'")) {
+                key = key.substring(1, key.length() - 1);
+            }
+            else if (key.startsWith("\"") && key.endsWith("\"")) {
+                key = key.substring(1, key.length() - 1);
+            }
+        }
+        String canonicalName = actualName;
+        if (key != null) {
+            canonicalName += "[" + key + "]";
+        }
+        return new Token(propertyName, canonicalName, actualName, key);
+    }
+
+    /**
+     * Create the token of an indexed or mapped property from its parts,
+     * without parsing: e.g. for the elements of a collection property.
+     * @param actualName the name of the bean property
+     * @param key the index or key of the element
+     * @return the token
+     */
+    static Token createToken(String actualName, String key) {
+        String propertyName = actualName + "[" + key + "]";
+        return new Token(propertyName, propertyName, actualName, key);
+    }
+
+
+    private final String path;
+
+    private final Token[] tokens;
+
+    /** Whether this path has been used since last considered for eviction */
+    private volatile boolean used;
+
+    private PropertyPath(String path) {
+        this.path = path;
+        List tokenList = new ArrayList();
+        int start = 0;
+        int pos;
+        while ((pos = path.indexOf(BeanWrapper.NESTED_PROPERTY_SEPARATOR, start)) != -1) {
+            tokenList.add(parseToken(path.substring(start, pos)));
+            start = pos + 1;
+        }
+        tokenList.add(parseToken(start == 0 ? path : path.substring(start)));
+        this.tokens = (Token[]) tokenList.toArray(new Token[tokenList.size()]);
+    }
+
+    /**
+     * Return the property path as given.
+     */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * Return whether the path navigates through nested properties.
+     */
+    boolean isNested() {
+        return this.tokens.length > 1;
+    }
+
+    /**
+     * Return the number of tokens, i.e. of nested properties plus one.
+     */
+    int getTokenCount() {
+        return this.tokens.length;
+    }
+
+    /**
+     * Return the token at the given position.
+     */
+    Token getToken(int index) {
+        return this.tokens[index];
+    }
+
+    /**
+     * Return the last token: the property on the target bean.
+     */
+    Token getFinalToken() {
+        return this.tokens[this.tokens.length - 1];
+    }
+
+
+    /**
+     * Parsed property name within a path.
+     */
+    static final class Token {
+
+        private final String propertyName;
+
+        private final String canonicalName;
+
+        private final String actualName;
+
+        private final String key;
+
+        private Token(String propertyName, String canonicalName, String actualName, String key) {
+            this.propertyName = propertyName;
+            this.canonicalName = canonicalName;
+            this.actualName = actualName;
+            this.key = key;
+        }
+
+        /**
+         * Return the property name as given, e.g. "map['key']".
+         */
+        String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * Return the property name with unquoted key, e.g. "map[key]".
+         */
+        String getCanonicalName() {
+            return canonicalName;
+        }
+
+        /**
+         * Return the name of the bean property, e.g. "map".
+         */
+        String getActualName() {
+            return actualName;
+        }
+
+        /**
+         * Return the key of an indexed or mapped property, or null if none.
+         */
+        String getKey() {
+            return key;
+        }
+    }
+
+}
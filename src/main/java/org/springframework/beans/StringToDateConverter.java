@@ -0,0 +1,49 @@
+package org.springframework.beans;
+
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.util.DateTimeParser;
+
+/**
+ * Converter from String to java.util.Date or one of the java.time types,
+ * parsing with an immutable DateTimeFormatter. Thread-safe, so one instance
+ * can be shared by all BeanWrappers of a factory instead of registering
+ * a new CustomDateEditor with each of them.
+ *
+ * <p>Typically registered for String and the date class, for example
+ * <code>addConverter(String.class, Date.class, new StringToDateConverter(Date.class, formatter))</code>.
+ *
+ * @see org.springframework.util.DateTimeParser
+ * @see org.springframework.beans.factory.config.ConfigurableBeanFactory#addConverter
+ */
+public class StringToDateConverter implements Converter {
+
+    private final DateTimeParser dateTimeParser;
+
+    /**
+     * Create a new StringToDateConverter for the given date class and formatter.
+     * @param dateClass the date class: Date or one of the supported java.time types
+     * @param formatter the DateTimeFormatter to parse with
+     * @throws IllegalArgumentException if the date class is not supported
+     */
+    public StringToDateConverter(Class dateClass, DateTimeFormatter formatter) throws IllegalArgumentException {
+        this(new DateTimeParser(dateClass, formatter));
+    }
+
+    /**
+     * Create a new StringToDateConverter with the given DateTimeParser,
+     * e.g. one that caches parsed values.
+     * @param dateTimeParser the DateTimeParser to parse with
+     */
+    public StringToDateConverter(DateTimeParser dateTimeParser) {
+        if (dateTimeParser == null) {
+            throw new IllegalArgumentException("DateTimeParser must not be null");
+        }
+        this.dateTimeParser = dateTimeParser;
+    }
+
+    public Object convert(Object source) throws IllegalArgumentException {
+        return this.dateTimeParser.parse(source.toString().trim());
+    }
+
+}
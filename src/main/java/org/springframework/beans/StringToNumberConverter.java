@@ -0,0 +1,52 @@
+package org.springframework.beans;
+
+import java.util.Locale;
+
+import org.springframework.util.NumberUtils;
+
+/**
+ * Converter from String to any of the standard Number classes, parsing
+ * directly from the text. Stateless, so one instance can be shared by all
+ * BeanWrappers of a factory and used concurrently, in contrast to a
+ * CustomNumberEditor.
+ *
+ * <p>Typically registered for String and the number class, for example
+ * <code>addConverter(String.class, Integer.class, new StringToNumberConverter(Integer.class))</code>;
+ * the registration also applies to the corresponding primitive type.
+ *
+ * @see org.springframework.util.NumberUtils#parseNumber(String, Class, Locale)
+ * @see org.springframework.beans.factory.config.ConfigurableBeanFactory#addConverter
+ */
+public class StringToNumberConverter implements Converter {
+
+    private final Class numberClass;
+
+    private final Locale locale;
+
+    /**
+     * Create a new StringToNumberConverter for plain number text.
+     * @param numberClass Number subclass to generate
+     */
+    public StringToNumberConverter(Class numberClass) {
+        this(numberClass, null);
+    }
+
+    /**
+     * Create a new StringToNumberConverter accepting the grouping and
+     * decimal separators of the given Locale.
+     * @param numberClass Number subclass to generate
+     * @param locale Locale whose number symbols to accept, or null for none
+     */
+    public StringToNumberConverter(Class numberClass, Locale locale) {
+        if (numberClass == null || !Number.class.isAssignableFrom(numberClass)) {
+            throw new IllegalArgumentException("Number class must be a subclass of Number");
+        }
+        this.numberClass = numberClass;
+        this.locale = locale;
+    }
+
+    public Object convert(Object source) throws IllegalArgumentException {
+        return NumberUtils.parseNumber(source.toString(), this.numberClass, this.locale);
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+/**
+ * Exception thrown in case of a reference to a singleton that is currently
+ * in creation and cannot be resolved: either a circular reference on the
+ * creating thread before an early reference has been exposed, or a cycle
+ * of threads waiting for each other's singletons.
+ *
+ * <p>Thrown instead of blocking, as waiting would never return.
+ *
+ * @see org.springframework.beans.factory.support.AbstractBeanFactory#getBean
+ */
+public class BeanCurrentlyInCreationException extends BeanCreationException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String beanName;
+
+	/**
+	 * Create a new BeanCurrentlyInCreationException.
+	 * @param beanName the name of the singleton in creation
+	 * @param msg the detail message
+	 */
+	public BeanCurrentlyInCreationException(String beanName, String msg) {
+		super("Error creating bean with name '" + beanName + "': " + msg);
+		this.beanName = beanName;
+	}
+
+	/**
+	 * Return the name of the singleton that is currently in creation.
+	 */
+	public String getBeanName() {
+		return beanName;
+	}
+
+}
@@ -1,6 +1,7 @@
 package org.springframework.beans.factory.config;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.Converter;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.HierarchicalBeanFactory;
 
@@ -13,6 +14,7 @@ import java.beans.PropertyEditor;
 public interface ConfigurableBeanFactory extends HierarchicalBeanFactory {
     void setParentBeanFactory(BeanFactory parentBeanFactory);
     void registerCustomEditor(Class requiredType, PropertyEditor propertyEditor);
+    void addConverter(Class sourceType, Class targetType, Converter converter);
     void ignoreDependencyType(Class type);
     void addBeanPostProcessor(BeanPostProcessor beanPostProcessor);
     BeanDefinition getBeanDefinition(String beanName) throws BeansException;
@@ -5,14 +5,19 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.util.ClassCache;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Created by arahansa on 2016-03-20.
@@ -29,14 +34,80 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
     }
 
 
+    /**
+     * Orders constructors by descending number of parameters,
+     * so that the most specific ones get tried first.
+     */
+    private static final Comparator CONSTRUCTOR_COMPARATOR = new Comparator() {
+        public int compare(Object o1, Object o2) {
+            int c1pl = ((Constructor) o1).getParameterTypes().length;
+            int c2pl = ((Constructor) o2).getParameterTypes().length;
+            return (c1pl > c2pl ? -1 : (c1pl == c2pl ? 0 : 1));
+        }
+    };
+
+
     private final Set disposableInnerBeans = Collections.synchronizedSet(new HashSet());
 
+    /**
+     * Public constructors of each bean class, sorted by CONSTRUCTOR_COMPARATOR.
+     * Class-keyed caches use ClassCache, to not keep class loaders from being unloaded.
+     */
+    private static final ClassCache sortedConstructors = new ClassCache() {
+        protected Object computeValue(Class beanClass) {
+            Constructor[] constructors = beanClass.getConstructors();
+            Arrays.sort(constructors, CONSTRUCTOR_COMPARATOR);
+            return constructors;
+        }
+    };
+
+    /** Maps of argument type to Integer class hierarchy distance for each value class */
+    private static final ClassCache typeDistances = new ClassCache() {
+        protected Object computeValue(Class valueClass) {
+            return new ConcurrentHashMap();
+        }
+    };
+
+    /**
+     * Maps of constructor signature key to InstantiationPlan with resolved
+     * constructor, for each bean class. Specific to this factory.
+     */
+    private final ClassCache resolvedConstructors = new ClassCache() {
+        protected Object computeValue(Class beanClass) {
+            return new ConcurrentHashMap();
+        }
+    };
+
+    /** Executor to create non-lazy singletons on, if any */
+    private Executor preInstantiationExecutor;
+
     public AbstractAutowireCapableBeanFactory() {
     }
     public AbstractAutowireCapableBeanFactory(BeanFactory parentBeanFactory) {
         super(parentBeanFactory);
     }
 
+    /**
+     * Set the Executor to create non-lazy singletons on when pre-instantiating,
+     * for example a ForkJoinPool. Independent singletons then get created
+     * concurrently, while beans are still created after the beans that they
+     * depend on, as given by depends-on, constructor argument references and
+     * property references.
+     * <p>Default is none, creating all singletons one after another
+     * on the calling thread.
+     * @see #preInstantiateSingletons(String[])
+     */
+    public void setPreInstantiationExecutor(Executor preInstantiationExecutor) {
+        this.preInstantiationExecutor = preInstantiationExecutor;
+    }
+
+    /**
+     * Return the Executor to create non-lazy singletons on, if any.
+     */
+    public Executor getPreInstantiationExecutor() {
+        return preInstantiationExecutor;
+    }
+
     //---------------------------------------------------------------------
     // AutowireCapableBeanFactory 의 구현
     // Implementation of AutowireCapableBeanFactory
@@ -104,9 +175,17 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
             }
         }
 
+        InstantiationPlan plan = mergedBeanDefinition.getInstantiationPlan();
+        if (plan == null) {
+            plan = new InstantiationPlan(
+                    mergedBeanDefinition.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_CONSTRUCTOR ||
+                    mergedBeanDefinition.hasConstructorArgumentValues(),
+                    mergedBeanDefinition.getConstructorArgumentCount());
+            mergedBeanDefinition.setInstantiationPlan(plan);
+        }
+
         BeanWrapper instanceWrapper = null;
-        if (mergedBeanDefinition.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_CONSTRUCTOR ||
-                mergedBeanDefinition.hasConstructorArgumentValues()) {
+        if (plan.isConstructorResolution()) {
             instanceWrapper = autowireConstructor(beanName, mergedBeanDefinition);
         }
         else {
@@ -156,6 +235,104 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
 
 
+    /**
+     * Instantiate all non-lazy singletons among the given bean definitions,
+     * concurrently if a pre-instantiation Executor has been set.
+     * To be called by implementations of ConfigurableListableBeanFactory's
+     * preInstantiateSingletons with the names of all bean definitions.
+     * @param beanNames the names of the bean definitions to consider
+     * @throws BeansException if one of the singletons could not be created
+     * @see #setPreInstantiationExecutor
+     * @see org.springframework.beans.factory.config.ConfigurableListableBeanFactory#preInstantiateSingletons
+     */
+    protected void preInstantiateSingletons(String[] beanNames) throws BeansException {
+        Map definitions = new LinkedHashMap();
+        for (int i = 0; i < beanNames.length; i++) {
+            if (containsBeanDefinition(beanNames[i])) {
+                RootBeanDefinition bd = getMergedBeanDefinition(beanNames[i], false);
+                if (bd.isSingleton() && !bd.isLazyInit()) {
+                    definitions.put(beanNames[i], bd);
+                }
+            }
+        }
+        if (this.preInstantiationExecutor != null) {
+            new SingletonPreInstantiator(this, this.preInstantiationExecutor).preInstantiate(definitions);
+        }
+        else {
+            for (Iterator it = definitions.entrySet().iterator(); it.hasNext();) {
+                Map.Entry entry = (Map.Entry) it.next();
+                preInstantiateSingleton((String) entry.getKey(), (RootBeanDefinition) entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Instantiate the given non-lazy singleton. In case of a FactoryBean,
+     * the created object gets instantiated too if it is a singleton.
+     * @param beanName the name of the bean
+     * @param mergedBeanDefinition the merged bean definition for the bean
+     */
+    protected void preInstantiateSingleton(String beanName, RootBeanDefinition mergedBeanDefinition)
+            throws BeansException {
+        if (FactoryBean.class.isAssignableFrom(mergedBeanDefinition.getBeanClass())) {
+            FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
+            if (factory.isSingleton()) {
+                getBean(beanName);
+            }
+        }
+        else {
+            getBean(beanName);
+        }
+    }
+
+    /**
+     * Return the canonical names of the beans that the given bean definition refers to:
+     * depends-on beans plus RuntimeBeanReferences among constructor argument values
+     * and property values, including those held in Lists, Sets and Maps.
+     * @param mergedBeanDefinition the merged bean definition to analyze
+     * @return a Set of bean names
+     * @see RuntimeBeanReference
+     */
+    protected Set getReferencedBeanNames(RootBeanDefinition mergedBeanDefinition) {
+        Set beanNames = new LinkedHashSet();
+        String[] dependsOn = mergedBeanDefinition.getDependsOn();
+        if (dependsOn != null) {
+            for (int i = 0; i < dependsOn.length; i++) {
+                beanNames.add(transformedBeanName(dependsOn[i]));
+            }
+        }
+        ConstructorArgumentValues cargs = mergedBeanDefinition.getConstructorArgumentValues();
+        if (cargs != null) {
+            for (Iterator it = cargs.getIndexedArgumentValues().values().iterator(); it.hasNext();) {
+                addReferencedBeanNames(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), beanNames);
+            }
+            for (Iterator it = cargs.getGenericArgumentValues().iterator(); it.hasNext();) {
+                addReferencedBeanNames(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), beanNames);
+            }
+        }
+        PropertyValue[] pvs = mergedBeanDefinition.getPropertyValues().getPropertyValues();
+        for (int i = 0; i < pvs.length; i++) {
+            addReferencedBeanNames(pvs[i].getValue(), beanNames);
+        }
+        return beanNames;
+    }
+
+    private void addReferencedBeanNames(Object value, Set beanNames) {
+        if (value instanceof RuntimeBeanReference) {
+            beanNames.add(transformedBeanName(((RuntimeBeanReference) value).getBeanName()));
+        }
+        else if (value instanceof Collection) {
+            for (Iterator it = ((Collection) value).iterator(); it.hasNext();) {
+                addReferencedBeanNames(it.next(), beanNames);
+            }
+        }
+        else if (value instanceof Map) {
+            for (Iterator it = ((Map) value).values().iterator(); it.hasNext();) {
+                addReferencedBeanNames(it.next(), beanNames);
+            }
+        }
+    }
+
     /**
      * "autowire constructor" (with constructor arguments by type) behaviour.
      * Also applied if explicit constructor argument values are specified,
@@ -199,60 +376,57 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
             }
         }
 
-        Constructor[] constructors = mergedBeanDefinition.getBeanClass().getConstructors();
-        Arrays.sort(constructors, new Comparator() {
-            public int compare(Object o1, Object o2) {
-                int c1pl = ((Constructor) o1).getParameterTypes().length;
-                int c2pl = ((Constructor) o2).getParameterTypes().length;
-                return (new Integer(c1pl)).compareTo(new Integer(c2pl)) * -1;
-            }
-        });
-
         BeanWrapperImpl bw = new BeanWrapperImpl();
         initBeanWrapper(bw);
+        int autowireMode = mergedBeanDefinition.getResolvedAutowireMode();
+
+        // reuse the constructor resolved on a previous creation, if still applicable:
+        // for this bean definition, or for the same class, and the same argument signature
+        Object signatureKey = createConstructorSignatureKey(autowireMode, resolvedValues);
+        InstantiationPlan plan = mergedBeanDefinition.getInstantiationPlan();
+        if (plan == null || plan.getConstructor() == null || !signatureKey.equals(plan.getSignatureKey())) {
+            plan = (InstantiationPlan) getResolvedConstructors(mergedBeanDefinition.getBeanClass()).get(signatureKey);
+        }
+        if (plan != null && plan.getConstructor() != null) {
+            try {
+                Object[] args = resolveConstructorArguments(beanName, mergedBeanDefinition, autowireMode,
+                        resolvedValues, plan.getParameterTypes(), minNrOfArgs, bw);
+                if (getTypeDifferenceWeight(plan.getParameterTypes(), args) != Integer.MAX_VALUE) {
+                    bw.setWrappedInstance(BeanUtils.instantiateClass(plan.getConstructor(), args));
+                    mergedBeanDefinition.setInstantiationPlan(plan);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Bean '" + beanName + "' instantiated via planned constructor [" +
+                                plan.getConstructor() + "]");
+                    }
+                    return bw;
+                }
+            }
+            // only failures to match the arguments: dependency failures are real
+            catch (UnsatisfiedDependencyException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Planned constructor [" + plan.getConstructor() + "] of bean '" + beanName +
+                            "' not applicable anymore, resolving again. Detail: " + ex.getMessage());
+                }
+            }
+            catch (TypeMismatchException ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Planned constructor [" + plan.getConstructor() + "] of bean '" + beanName +
+                            "' not applicable anymore, resolving again. Detail: " + ex.getMessage());
+                }
+            }
+        }
+
+        Constructor[] constructors = getSortedConstructors(mergedBeanDefinition.getBeanClass());
+
         Constructor constructorToUse = null;
         Object[] argsToUse = null;
         int minTypeDiffWeight = Integer.MAX_VALUE;
         for (int i = 0; i < constructors.length; i++) {
             try {
                 Constructor constructor = constructors[i];
-                if (constructor.getParameterTypes().length < minNrOfArgs) {
-                    throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
-                            minNrOfArgs + " constructor arguments specified but no matching constructor found in bean '" +
-                                    beanName + "' (hint: specify index arguments for simple parameters to avoid type ambiguities)");
-                }
                 Class[] argTypes = constructor.getParameterTypes();
-                Object[] args = new Object[argTypes.length];
-                for (int j = 0; j < argTypes.length; j++) {
-                    ConstructorArgumentValues.ValueHolder valueHolder = resolvedValues.getArgumentValue(j, argTypes[j]);
-                    if (valueHolder != null) {
-                        // synchronize if custom editors are registered
-                        // necessary because PropertyEditors are not thread-safe
-                        if (!getCustomEditors().isEmpty()) {
-                            synchronized (this) {
-                                args[j] = bw.doTypeConversionIfNecessary(valueHolder.getValue(), argTypes[j]);
-                            }
-                        }
-                        else {
-                            args[j] = bw.doTypeConversionIfNecessary(valueHolder.getValue(), argTypes[j]);
-                        }
-                    }
-                    else {
-                        if (mergedBeanDefinition.getResolvedAutowireMode() != RootBeanDefinition.AUTOWIRE_CONSTRUCTOR) {
-                            throw new UnsatisfiedDependencyException(beanName, j, argTypes[j],
-                                    "Did you specify the correct bean references as generic constructor arguments?");
-                        }
-                        Map matchingBeans = findMatchingBeans(argTypes[j]);
-                        if (matchingBeans == null || matchingBeans.size() != 1) {
-                            throw new UnsatisfiedDependencyException(beanName, j, argTypes[j],
-                                    "There are " + matchingBeans.size() + " beans of type [" + argTypes[j] + "] for autowiring constructor. " +
-                                            "There should have been 1 to be able to autowire constructor of bean '" + beanName + "'.");
-                        }
-                        args[j] = matchingBeans.values().iterator().next();
-                        log.info("Autowiring by type from bean name '" + beanName +
-                                "' via constructor to bean named '" + matchingBeans.keySet().iterator().next() + "'");
-                    }
-                }
+                Object[] args = resolveConstructorArguments(beanName, mergedBeanDefinition, autowireMode,
+                        resolvedValues, argTypes, minNrOfArgs, bw);
                 int typeDiffWeight = getTypeDifferenceWeight(argTypes, args);
                 if (typeDiffWeight < minTypeDiffWeight) {
                     constructorToUse = constructor;
@@ -280,10 +454,120 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
                     "Could not resolve matching constructor");
         }
         bw.setWrappedInstance(BeanUtils.instantiateClass(constructorToUse, argsToUse));
+        InstantiationPlan resolvedPlan = new InstantiationPlan(constructorToUse,
+                mergedBeanDefinition.getConstructorArgumentCount(), signatureKey);
+        mergedBeanDefinition.setInstantiationPlan(resolvedPlan);
+        getResolvedConstructors(mergedBeanDefinition.getBeanClass()).put(signatureKey, resolvedPlan);
         log.info("Bean '" + beanName + "' instantiated via constructor [" + constructorToUse + "]");
         return bw;
     }
 
+    /**
+     * Return the public constructors of the given class, sorted by
+     * descending number of parameters. Not to be modified.
+     */
+    private Constructor[] getSortedConstructors(Class beanClass) {
+        return (Constructor[]) sortedConstructors.get(beanClass);
+    }
+
+    /**
+     * Return the Map of constructor signature key to resolved InstantiationPlan
+     * for the given bean class.
+     */
+    private Map getResolvedConstructors(Class beanClass) {
+        return (Map) this.resolvedConstructors.get(beanClass);
+    }
+
+    /**
+     * Build a key identifying the constructor resolution for a bean class, by
+     * argument signature: the autowire mode plus the class name and specified type
+     * of each indexed and generic argument value. Refers to classes by name, to not
+     * keep argument classes from being unloaded through the per-class cache.
+     * @param autowireMode the resolved autowire mode
+     * @param resolvedValues the resolved constructor argument values
+     * @return the key, with proper equals and hashCode implementations
+     */
+    private Object createConstructorSignatureKey(int autowireMode, ConstructorArgumentValues resolvedValues) {
+        List key = new ArrayList();
+        key.add(Integer.valueOf(autowireMode));
+        for (Iterator it = resolvedValues.getIndexedArgumentValues().entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) entry.getValue();
+            key.add(entry.getKey());
+            key.add(valueHolder.getValue() != null ? valueHolder.getValue().getClass().getName() : null);
+            key.add(valueHolder.getType());
+        }
+        // generic argument values come without order
+        List genericSignature = new ArrayList();
+        for (Iterator it = resolvedValues.getGenericArgumentValues().iterator(); it.hasNext();) {
+            ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) it.next();
+            Object value = valueHolder.getValue();
+            genericSignature.add((value != null ? value.getClass().getName() : "null") + ":" + valueHolder.getType());
+        }
+        Collections.sort(genericSignature);
+        key.add(genericSignature);
+        return key;
+    }
+
+    /**
+     * Resolve the arguments for a constructor with the given parameter types,
+     * from the given constructor argument values or by autowiring by type.
+     * @param beanName name of the bean
+     * @param mergedBeanDefinition the bean definition for the bean
+     * @param autowireMode the resolved autowire mode of the bean definition
+     * @param resolvedValues constructor argument values with resolved bean references
+     * @param argTypes the parameter types of the constructor
+     * @param minNrOfArgs the number of specified constructor arguments
+     * @param bw the BeanWrapper to use for type conversion
+     * @return the arguments for the constructor
+     * @throws BeansException if the constructor arguments cannot be satisfied
+     */
+    private Object[] resolveConstructorArguments(String beanName, RootBeanDefinition mergedBeanDefinition,
+                                                 int autowireMode, ConstructorArgumentValues resolvedValues,
+                                                 Class[] argTypes, int minNrOfArgs, BeanWrapperImpl bw)
+            throws BeansException {
+        if (argTypes.length < minNrOfArgs) {
+            throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
+                    minNrOfArgs + " constructor arguments specified but no matching constructor found in bean '" +
+                            beanName + "' (hint: specify index arguments for simple parameters to avoid type ambiguities)");
+        }
+        Object[] args = new Object[argTypes.length];
+        for (int j = 0; j < argTypes.length; j++) {
+            ConstructorArgumentValues.ValueHolder valueHolder = resolvedValues.getArgumentValue(j, argTypes[j]);
+            if (valueHolder != null) {
+                // synchronize if custom editors may be used, which take precedence over Converters:
+                // necessary because PropertyEditors are not thread-safe, Converters are
+                Object value = valueHolder.getValue();
+                if (value != null && !getCustomEditors().isEmpty() &&
+                        (bw.findCustomEditor(argTypes[j], null) != null || (!argTypes[j].isInstance(value) &&
+                                getConverterRegistry().getConverter(value.getClass(), argTypes[j]) == null))) {
+                    synchronized (this) {
+                        args[j] = bw.doTypeConversionIfNecessary(value, argTypes[j]);
+                    }
+                }
+                else {
+                    args[j] = bw.doTypeConversionIfNecessary(value, argTypes[j]);
+                }
+            }
+            else {
+                if (autowireMode != RootBeanDefinition.AUTOWIRE_CONSTRUCTOR) {
+                    throw new UnsatisfiedDependencyException(beanName, j, argTypes[j],
+                            "Did you specify the correct bean references as generic constructor arguments?");
+                }
+                Map matchingBeans = findMatchingBeans(argTypes[j]);
+                if (matchingBeans == null || matchingBeans.size() != 1) {
+                    throw new UnsatisfiedDependencyException(beanName, j, argTypes[j],
+                            "There are " + matchingBeans.size() + " beans of type [" + argTypes[j] + "] for autowiring constructor. " +
+                                    "There should have been 1 to be able to autowire constructor of bean '" + beanName + "'.");
+                }
+                args[j] = matchingBeans.values().iterator().next();
+                log.info("Autowiring by type from bean name '" + beanName +
+                        "' via constructor to bean named '" + matchingBeans.keySet().iterator().next() + "'");
+            }
+        }
+        return args;
+    }
+
     /**
      * Determine a weight that represents the class hierarchy difference between types and
      * arguments. A direct match, i.e. type Integer -> arg of class Integer, does not increase
@@ -306,21 +590,33 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
                 return Integer.MAX_VALUE;
             }
             if (args[i] != null) {
-                Class superClass = args[i].getClass().getSuperclass();
-                while (superClass != null) {
-                    if (argTypes[i].isAssignableFrom(superClass)) {
-                        result++;
-                        superClass = superClass.getSuperclass();
-                    }
-                    else {
-                        superClass = null;
-                    }
-                }
+                result += getTypeDistance(argTypes[i], args[i].getClass());
             }
         }
         return result;
     }
 
+    /**
+     * Return the number of superclasses of the given value class that still
+     * match the given argument type, caching the result per pair of classes.
+     * @see #getTypeDifferenceWeight
+     */
+    private int getTypeDistance(Class argType, Class valueClass) {
+        Map distances = (Map) typeDistances.get(valueClass);
+        Integer distance = (Integer) distances.get(argType);
+        if (distance == null) {
+            int result = 0;
+            Class superClass = valueClass.getSuperclass();
+            while (superClass != null && argType.isAssignableFrom(superClass)) {
+                result++;
+                superClass = superClass.getSuperclass();
+            }
+            distance = Integer.valueOf(result);
+            distances.put(argType, distance);
+        }
+        return distance.intValue();
+    }
+
 
 
 
@@ -3,6 +3,8 @@ package org.springframework.beans.factory.support;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.Converter;
+import org.springframework.beans.ConverterRegistry;
 import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
@@ -10,6 +12,9 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 
 import java.beans.PropertyEditor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Created by arahansa on 2016-03-20.
@@ -18,12 +23,50 @@ import java.util.*;
 public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
 
     public static final String FACTORY_BEAN_PREFIX = "&";
+
+    private static final String[] EMPTY_ALIASES = new String[0];
+
     private BeanFactory parentBeanFactory;
     private Map customEditors = new HashMap();
+    private final ConverterRegistry converterRegistry = new ConverterRegistry();
     private final Set ignoreDependencyTypes = new HashSet();
     private final List beanPostProcessors = new ArrayList();
-    private final Map aliasMap = Collections.synchronizedMap(new HashMap());
-    private final Map singletonCache = Collections.synchronizedMap(new HashMap());
+    /** Map from alias to canonical bean name, read without locking, modified under its lock */
+    private final Map aliasMap = new ConcurrentHashMap();
+
+    /** Number of alias registrations, to detect names resolved against stale aliases */
+    private volatile int aliasRegistrations;
+
+    /**
+     * Reverse index of aliasMap: canonical bean name to String array of aliases.
+     * Arrays are replaced on registration, never modified.
+     */
+    private final Map aliasesByBeanName = new ConcurrentHashMap();
+
+    /**
+     * Cache of raw bean names (possibly with factory dereference prefix)
+     * to ResolvedBeanName objects. Only holds names that resolved to an alias,
+     * a singleton or a bean definition. Cleared on alias registration.
+     */
+    private final Map resolvedBeanNames = new ConcurrentHashMap();
+
+    /** Cache of fully initialized singletons, read without locking */
+    private final ConcurrentMap singletonCache = new ConcurrentHashMap();
+
+    /** Creation records of singletons currently in creation, keyed by bean name */
+    private final ConcurrentMap singletonsInCreation = new ConcurrentHashMap();
+
+    /** Name of the singleton that each thread is waiting for, keyed by Thread */
+    private final ConcurrentMap awaitedSingletons = new ConcurrentHashMap();
+
+    /** Names of cached singletons by type */
+    private final BeanTypeIndex singletonTypeIndex = new BeanTypeIndex();
+
+    /** Merged definitions of ChildBeanDefinitions, keyed by bean name */
+    private final Map mergedBeanDefinitions = new ConcurrentHashMap();
+
+    /** Objects created by singleton FactoryBeans, keyed by FactoryBean name */
+    private final Map factoryBeanObjectCache = new ConcurrentHashMap();
 
     public AbstractBeanFactory() {
         ignoreDependencyType(BeanFactory.class);
@@ -65,15 +108,7 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
             }
             // create bean instance
             if (mergedBeanDefinition.isSingleton()) {
-                synchronized (this.singletonCache) {
-                    // re-check singleton cache within synchronized block
-                    sharedInstance = this.singletonCache.get(beanName);
-                    if (sharedInstance == null) {
-                        log.info("Creating shared instance of singleton bean '" + beanName + "'");
-                        sharedInstance = createBean(beanName, mergedBeanDefinition);
-                        addSingleton(beanName, sharedInstance);
-                    }
-                }
+                sharedInstance = getOrCreateSingleton(beanName, mergedBeanDefinition);
                 return getObjectForSharedInstance(name, sharedInstance);
             }
             else {
@@ -114,15 +149,9 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
         String beanName = transformedBeanName(name);
         // check if bean actually exists in this bean factory
         if (this.singletonCache.containsKey(beanName) || containsBeanDefinition(beanName)) {
-            // if found, gather aliases
-            List aliases = new ArrayList();
-            for (Iterator it = this.aliasMap.entrySet().iterator(); it.hasNext();) {
-                Map.Entry entry = (Map.Entry) it.next();
-                if (entry.getValue().equals(beanName)) {
-                    aliases.add(entry.getKey());
-                }
-            }
-            return (String[]) aliases.toArray(new String[aliases.size()]);
+            // if found, return the indexed aliases
+            String[] aliases = (String[]) this.aliasesByBeanName.get(beanName);
+            return (aliases != null ? (String[]) aliases.clone() : EMPTY_ALIASES);
         }
         else {
             // not found -> check parent
@@ -160,6 +189,18 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
         return customEditors;
     }
 
+    public void addConverter(Class sourceType, Class targetType, Converter converter) {
+        this.converterRegistry.addConverter(sourceType, targetType, converter);
+    }
+
+    /**
+     * Return the registry of Converters, shared by all BeanWrappers
+     * created by this factory.
+     */
+    public ConverterRegistry getConverterRegistry() {
+        return converterRegistry;
+    }
+
     public void ignoreDependencyType(Class type) {
         this.ignoreDependencyTypes.add(type);
     }
@@ -192,11 +233,12 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
 
 
     /**
-     * Initialize the given BeanWrapper with the custom editors registered
-     * with this factory.
+     * Initialize the given BeanWrapper with the custom editors and
+     * Converters registered with this factory.
      * @param bw the BeanWrapper to initialize
      */
     protected void initBeanWrapper(BeanWrapper bw) {
+        bw.setConverterRegistry(this.converterRegistry);
         for (Iterator it = this.customEditors.keySet().iterator(); it.hasNext();) {
             Class clazz = (Class) it.next();
             bw.registerCustomEditor(clazz, (PropertyEditor) this.customEditors.get(clazz));
@@ -205,7 +247,8 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
 
 
     public boolean isSingleton(String name) throws NoSuchBeanDefinitionException {
-        String beanName = transformedBeanName(name);
+        ResolvedBeanName resolvedName = resolveBeanName(name);
+        String beanName = resolvedName.beanName;
         try {
             Class beanClass = null;
             boolean singleton = true;
@@ -220,7 +263,7 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
                 singleton = bd.isSingleton();
             }
             // in case of FactoryBean, return singleton status of created object if not a dereference
-            if (FactoryBean.class.isAssignableFrom(beanClass) && !isFactoryDereference(name)) {
+            if (FactoryBean.class.isAssignableFrom(beanClass) && !resolvedName.factoryDereference) {
                 FactoryBean factoryBean = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
                 return factoryBean.isSingleton();
             }
@@ -245,41 +288,181 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
                 throw new BeanDefinitionStoreException("Cannot register alias '" + alias + "' for bean name '" + beanName +
                         "': it's already registered for bean name '" + registeredName + "'");
             }
-            this.aliasMap.put(alias, beanName);
+            // flatten alias chains: always map to the canonical name
+            String canonicalName = (String) this.aliasMap.get(beanName);
+            if (canonicalName == null) {
+                canonicalName = beanName;
+            }
+            if (canonicalName.equals(alias)) {
+                throw new BeanDefinitionStoreException("Cannot register alias '" + alias + "' for bean name '" + beanName +
+                        "': circular reference - '" + beanName + "' is an alias for '" + alias + "'");
+            }
+            // move existing aliases of the new alias over to the canonical name
+            String[] aliasesOfAlias = (String[]) this.aliasesByBeanName.remove(alias);
+            if (aliasesOfAlias == null) {
+                aliasesOfAlias = EMPTY_ALIASES;
+            }
+            for (int i = 0; i < aliasesOfAlias.length; i++) {
+                this.aliasMap.put(aliasesOfAlias[i], canonicalName);
+            }
+            this.aliasMap.put(alias, canonicalName);
+
+            String[] oldAliases = (String[]) this.aliasesByBeanName.get(canonicalName);
+            if (oldAliases == null) {
+                oldAliases = EMPTY_ALIASES;
+            }
+            String[] newAliases = new String[oldAliases.length + aliasesOfAlias.length + 1];
+            System.arraycopy(oldAliases, 0, newAliases, 0, oldAliases.length);
+            System.arraycopy(aliasesOfAlias, 0, newAliases, oldAliases.length, aliasesOfAlias.length);
+            newAliases[newAliases.length - 1] = alias;
+            this.aliasesByBeanName.put(canonicalName, newAliases);
+
+            // count before clearing, for resolveBeanName to detect concurrent changes
+            this.aliasRegistrations++;
+            this.resolvedBeanNames.clear();
         }
     }
 
     public void registerSingleton(String beanName, Object singletonObject) throws BeanDefinitionStoreException {
-        synchronized (this.singletonCache) {
-            Object oldObject = this.singletonCache.get(beanName);
-            if (oldObject != null) {
-                throw new BeanDefinitionStoreException("Could not register object [" + singletonObject +
-                        "] under bean name '" + beanName + "': there's already object [" +
-                        oldObject + " bound");
-            }
-            addSingleton(beanName, singletonObject);
+        Object oldObject = this.singletonCache.putIfAbsent(beanName, singletonObject);
+        if (oldObject != null) {
+            throw new BeanDefinitionStoreException("Could not register object [" + singletonObject +
+                    "] under bean name '" + beanName + "': there's already object [" +
+                    oldObject + " bound");
         }
+        this.singletonTypeIndex.add(beanName, singletonObject.getClass());
     }
+
     /**
      * Add the given singleton object to the singleton cache of this factory.
      * <p>To be called for eager registration of singletons, e.g. to be able to
-     * resolve circular references.
+     * resolve circular references. While the singleton is still in creation
+     * on the current thread, the object is just exposed as early reference
+     * to that thread; other threads wait for the fully initialized instance.
      * @param beanName the name of the bean
      * @param singletonObject the singleton object
      */
     protected void addSingleton(String beanName, Object singletonObject) {
-        this.singletonCache.put(beanName, singletonObject);
+        SingletonCreation creation = (SingletonCreation) this.singletonsInCreation.get(beanName);
+        if (creation != null && creation.creator == Thread.currentThread()) {
+            creation.earlyReference = singletonObject;
+        }
+        else {
+            this.singletonCache.put(beanName, singletonObject);
+            this.singletonTypeIndex.add(beanName, singletonObject.getClass());
+        }
+    }
+
+    /**
+     * Return the shared instance for the given singleton, creating it if necessary.
+     * <p>Each singleton is created at most once, by the first thread asking for it,
+     * without blocking the creation of unrelated singletons. Other threads asking
+     * for the same singleton wait for it to be fully initialized.
+     * @param beanName the canonical name of the bean
+     * @param mergedBeanDefinition the merged bean definition for the bean
+     * @return the shared instance (or an early reference in case of a circular reference)
+     * @throws BeansException if the singleton could not be created
+     */
+    private Object getOrCreateSingleton(String beanName, RootBeanDefinition mergedBeanDefinition)
+            throws BeansException {
+        SingletonCreation creation = new SingletonCreation(Thread.currentThread());
+        SingletonCreation existing = (SingletonCreation) this.singletonsInCreation.putIfAbsent(beanName, creation);
+        if (existing != null) {
+            return awaitSingleton(beanName, existing);
+        }
+        Object sharedInstance = null;
+        RuntimeException failure = null;
+        try {
+            // re-check singleton cache: creation might have finished in the meantime
+            sharedInstance = this.singletonCache.get(beanName);
+            if (sharedInstance == null) {
+                log.info("Creating shared instance of singleton bean '" + beanName + "'");
+                sharedInstance = createBean(beanName, mergedBeanDefinition);
+                this.singletonCache.put(beanName, sharedInstance);
+                this.singletonTypeIndex.add(beanName, sharedInstance.getClass());
+            }
+            return sharedInstance;
+        }
+        catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        }
+        catch (Error err) {
+            failure = new BeanCreationException("Creation of singleton bean '" + beanName + "' failed", err);
+            throw err;
+        }
+        finally {
+            this.singletonsInCreation.remove(beanName);
+            creation.done(sharedInstance, failure);
+        }
+    }
+
+    /**
+     * Wait for the given singleton creation to finish.
+     * Fails fast instead of blocking if the wait would close a cycle, unless
+     * the singleton has already been exposed as early reference.
+     * @param beanName the canonical name of the bean
+     * @param creation the creation record of the bean
+     * @return the shared instance, or an early reference to it
+     */
+    private Object awaitSingleton(String beanName, SingletonCreation creation) throws BeansException {
+        Thread currentThread = Thread.currentThread();
+        if (creation.creator == currentThread) {
+            // circular reference on the creating thread
+            if (creation.earlyReference != null) {
+                return creation.earlyReference;
+            }
+            throw new BeanCurrentlyInCreationException(beanName,
+                    "Requested bean is currently in creation: unresolvable circular reference");
+        }
+        this.awaitedSingletons.put(currentThread, beanName);
+        try {
+            if (isWaitingFor(creation.creator, currentThread)) {
+                if (creation.earlyReference != null) {
+                    return creation.earlyReference;
+                }
+                throw new BeanCurrentlyInCreationException(beanName,
+                        "Requested bean is currently in creation in thread [" + creation.creator.getName() +
+                        "], which is waiting for a bean in creation in this thread");
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Waiting for singleton bean '" + beanName + "' to be created in thread [" +
+                        creation.creator.getName() + "]");
+            }
+            return creation.await(beanName);
+        }
+        finally {
+            this.awaitedSingletons.remove(currentThread);
+        }
+    }
+
+    /**
+     * Determine whether the given thread is waiting, directly or through a chain
+     * of other creating threads, for a singleton created by the target thread.
+     */
+    private boolean isWaitingFor(Thread thread, Thread targetThread) {
+        // bound the walk: a chain longer than the number of waiting threads is a foreign cycle
+        for (int i = this.awaitedSingletons.size(); thread != null && i >= 0; i--) {
+            if (thread == targetThread) {
+                return true;
+            }
+            String awaitedBeanName = (String) this.awaitedSingletons.get(thread);
+            if (awaitedBeanName == null) {
+                return false;
+            }
+            SingletonCreation creation = (SingletonCreation) this.singletonsInCreation.get(awaitedBeanName);
+            thread = (creation != null ? creation.creator : null);
+        }
+        return false;
     }
 
     public void destroySingletons() {
         if (log.isInfoEnabled()) {
             log.info("Destroying singletons in factory {" + this + "}");
         }
-        synchronized (this.singletonCache) {
-            Set singletonCacheKeys = new HashSet(this.singletonCache.keySet());
-            for (Iterator it = singletonCacheKeys.iterator(); it.hasNext();) {
-                destroySingleton((String) it.next());
-            }
+        Set singletonCacheKeys = new HashSet(this.singletonCache.keySet());
+        for (Iterator it = singletonCacheKeys.iterator(); it.hasNext();) {
+            destroySingleton((String) it.next());
         }
     }
 
@@ -292,23 +475,59 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
     protected void destroySingleton(String beanName) {
         Object singletonInstance = this.singletonCache.remove(beanName);
         if (singletonInstance != null) {
+            this.singletonTypeIndex.remove(beanName);
             destroyBean(beanName, singletonInstance);
         }
+        Object factoryBeanObject = this.factoryBeanObjectCache.remove(beanName);
+        if (factoryBeanObject instanceof DisposableBean && factoryBeanObject != singletonInstance) {
+            if (log.isDebugEnabled()) {
+                log.debug("Calling destroy() on object created by FactoryBean '" + beanName + "'");
+            }
+            try {
+                ((DisposableBean) factoryBeanObject).destroy();
+            }
+            catch (Throwable ex) {
+                log.error("destroy() on object created by FactoryBean '" + beanName + "' threw an exception", ex);
+            }
+        }
     }
 
     //---------------------------------------------------------------------
     // 메소드들 구현
     //---------------------------------------------------------------------
     protected String transformedBeanName(String name) throws NoSuchBeanDefinitionException {
+        return resolveBeanName(name).beanName;
+    }
+
+    /**
+     * Resolve the given raw name into canonical bean name and factory dereference
+     * flag, using the cache of resolved names.
+     * @param name the raw name, possibly with factory dereference prefix or an alias
+     * @return the resolved name
+     */
+    private ResolvedBeanName resolveBeanName(String name) throws NoSuchBeanDefinitionException {
         if (name == null) {
             throw new NoSuchBeanDefinitionException(name, "Cannot get bean with null name");
         }
-        if (name.startsWith(FACTORY_BEAN_PREFIX)) {
-            name = name.substring(FACTORY_BEAN_PREFIX.length());
+        ResolvedBeanName resolvedName = (ResolvedBeanName) this.resolvedBeanNames.get(name);
+        if (resolvedName == null) {
+            int registrations = this.aliasRegistrations;
+            boolean factoryDereference = name.startsWith(FACTORY_BEAN_PREFIX);
+            String beanName = (factoryDereference ? name.substring(FACTORY_BEAN_PREFIX.length()) : name);
+            // handle aliasing: alias chains are flattened on registration
+            String canonicalName = (String) this.aliasMap.get(beanName);
+            resolvedName = new ResolvedBeanName(canonicalName != null ? canonicalName : beanName, factoryDereference);
+            // only cache names of known beans, to not grow the cache with arbitrary names probed
+            if (canonicalName != null || this.singletonCache.containsKey(beanName) ||
+                    containsBeanDefinition(beanName)) {
+                this.resolvedBeanNames.put(name, resolvedName);
+                if (registrations != this.aliasRegistrations) {
+                    // aliases changed meanwhile: the cache may have been cleared before our entry got in
+                    this.resolvedBeanNames.remove(name);
+                }
+            }
         }
-        // handle aliasing
-        String canonicalName = (String) this.aliasMap.get(name);
-        return canonicalName != null ? canonicalName : name;
+        return resolvedName;
     }
 
     /**
@@ -329,20 +548,9 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
      * object type (including subclasses), or an empty array if none
      */
     public String[] getSingletonNames(Class type) {
-        Set keys = this.singletonCache.keySet();
-        Set matches = new HashSet();
-        Iterator itr = keys.iterator();
-        while (itr.hasNext()) {
-            String name = (String) itr.next();
-            Object singletonObject = this.singletonCache.get(name);
-            if (type == null || type.isAssignableFrom(singletonObject.getClass())) {
-                matches.add(name);
-            }
-        }
-        return (String[]) matches.toArray(new String[matches.size()]);
+        return this.singletonTypeIndex.getNames(type);
     }
 
-
     /**
      *  주어진 공유된 빈을 위한 객체를 Get 하는데, 빈인스턴스 그 자신이거나,
      *  팩토리빈의 경우 생성된 객체? Get....
@@ -354,11 +562,12 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
      * @return the singleton instance of the bean
      */
     protected Object getObjectForSharedInstance(String name, Object beanInstance) {
-        String beanName = transformedBeanName(name);
+        ResolvedBeanName resolvedName = resolveBeanName(name);
+        String beanName = resolvedName.beanName;
         // Don't let calling code try to dereference the
         // bean factory if the bean isn't a factory
         // 재검증 - 팩토리빈인지?
-        if (isFactoryDereference(name) && !(beanInstance instanceof FactoryBean)) {
+        if (resolvedName.factoryDereference && !(beanInstance instanceof FactoryBean)) {
             throw new BeanIsNotAFactoryException(beanName, beanInstance);
         }
         // Now we have the bean instance, which may be a normal bean
@@ -367,34 +576,66 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
         // a reference to the factory.
         // 빈인스턴스가 FactoryBean 타입인가?
         if (beanInstance instanceof FactoryBean) {
-            if (!isFactoryDereference(name)) {
+            if (!resolvedName.factoryDereference) {
                 // return bean instance from factory
                 FactoryBean factory = (FactoryBean) beanInstance;
-                log.debug("Bean with name '" + beanName + "' is a factory bean");
-                try {
-                    beanInstance = factory.getObject();
-                }
-                catch (BeansException ex) {
-                    throw ex;
-                }
-                catch (Exception ex) {
-                    throw new BeanCreationException("FactoryBean threw exception on object creation", ex);
+                if (factory.isSingleton()) {
+                    // a singleton FactoryBean creates its object once
+                    beanInstance = this.factoryBeanObjectCache.get(beanName);
+                    if (beanInstance == null) {
+                        synchronized (factory) {
+                            beanInstance = this.factoryBeanObjectCache.get(beanName);
+                            if (beanInstance == null) {
+                                beanInstance = getObjectFromFactoryBean(beanName, factory);
+                                this.factoryBeanObjectCache.put(beanName, beanInstance);
+                            }
+                        }
+                    }
                 }
-                if (beanInstance == null) {
-                    throw new FactoryBeanCircularReferenceException(
-                            "Factory bean '" + beanName + "' returned null object - " +
-                                    "possible cause: not fully initialized due to circular bean reference");
+                else {
+                    beanInstance = getObjectFromFactoryBean(beanName, factory);
                 }
             }
             else {
                 // the user wants the factory itself
-                log.debug("Calling code asked for FactoryBean instance for name '" + beanName + "'");
+                if (log.isDebugEnabled()) {
+                    log.debug("Calling code asked for FactoryBean instance for name '" + beanName + "'");
+                }
             }
         }
 
         return beanInstance;
     }
 
+    /**
+     * Obtain an object to expose from the given FactoryBean.
+     * @param beanName the name of the FactoryBean
+     * @param factory the FactoryBean instance
+     * @return the object obtained from the FactoryBean
+     * @throws BeansException if FactoryBean object creation failed
+     */
+    private Object getObjectFromFactoryBean(String beanName, FactoryBean factory) throws BeansException {
+        if (log.isDebugEnabled()) {
+            log.debug("Bean with name '" + beanName + "' is a factory bean");
+        }
+        Object object = null;
+        try {
+            object = factory.getObject();
+        }
+        catch (BeansException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            throw new BeanCreationException("FactoryBean threw exception on object creation", ex);
+        }
+        if (object == null) {
+            throw new FactoryBeanCircularReferenceException(
+                    "Factory bean '" + beanName + "' returned null object - " +
+                            "possible cause: not fully initialized due to circular bean reference");
+        }
+        return object;
+    }
+
     public RootBeanDefinition getMergedBeanDefinition(String beanName, boolean includingAncestors)
             throws BeansException {
         try {
@@ -410,14 +651,28 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
         }
     }
 
+    /**
+     * Return a RootBeanDefinition for the given bean definition, merging a child
+     * definition with its parent. Merged child definitions are cached per bean name
+     * and rebuilt as soon as the child or any of its ancestors has been replaced.
+     * @param beanName the name of the bean definition
+     * @param bd the original bean definition (Root/ChildBeanDefinition)
+     * @return the merged RootBeanDefinition, to be treated as read-only
+     */
     protected RootBeanDefinition getMergedBeanDefinition(String beanName, BeanDefinition bd) {
         if (bd instanceof RootBeanDefinition) {
             return (RootBeanDefinition) bd;
         }
         else if (bd instanceof ChildBeanDefinition) {
             ChildBeanDefinition cbd = (ChildBeanDefinition) bd;
+            RootBeanDefinition parentDefinition = getMergedBeanDefinition(cbd.getParentName(), true);
+            // reuse cached merge if neither the child nor any ancestor has been replaced since
+            MergedBeanDefinition cached = (MergedBeanDefinition) this.mergedBeanDefinitions.get(beanName);
+            if (cached != null && cached.childDefinition == cbd && cached.parentDefinition == parentDefinition) {
+                return cached.rootDefinition;
+            }
             // deep copy
-            RootBeanDefinition rbd = new RootBeanDefinition(getMergedBeanDefinition(cbd.getParentName(), true));
+            RootBeanDefinition rbd = new RootBeanDefinition(parentDefinition);
             // override properties
             for (int i = 0; i < cbd.getPropertyValues().getPropertyValues().length; i++) {
                 rbd.getPropertyValues().addPropertyValue(cbd.getPropertyValues().getPropertyValues()[i]);
@@ -426,6 +681,7 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
             rbd.setSingleton(cbd.isSingleton());
             rbd.setLazyInit(cbd.isLazyInit());
             rbd.setResourceDescription(cbd.getResourceDescription());
+            this.mergedBeanDefinitions.put(beanName, new MergedBeanDefinition(cbd, parentDefinition, rbd));
             return rbd;
         }
         else {
@@ -488,4 +744,86 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory {
     protected abstract void destroyBean(String beanName, Object bean);
 
 
+    /**
+     * Cached merge of a ChildBeanDefinition, along with the child definition and
+     * the merged parent definition it was built from. Only valid as long as the
+     * bean factory still returns these very definition objects.
+     */
+    private static class MergedBeanDefinition {
+
+        private final ChildBeanDefinition childDefinition;
+
+        private final RootBeanDefinition parentDefinition;
+
+        private final RootBeanDefinition rootDefinition;
+
+        private MergedBeanDefinition(ChildBeanDefinition childDefinition, RootBeanDefinition parentDefinition,
+                                     RootBeanDefinition rootDefinition) {
+            this.childDefinition = childDefinition;
+            this.parentDefinition = parentDefinition;
+            this.rootDefinition = rootDefinition;
+        }
+    }
+
+
+    /**
+     * Canonical bean name for a raw name, plus whether the raw name
+     * was a factory dereference.
+     */
+    private static class ResolvedBeanName {
+
+        private final String beanName;
+
+        private final boolean factoryDereference;
+
+        private ResolvedBeanName(String beanName, boolean factoryDereference) {
+            this.beanName = beanName;
+            this.factoryDereference = factoryDereference;
+        }
+    }
+
+
+    /**
+     * Record of a singleton in creation: the creating thread, an optional
+     * early reference for resolving circular references, and the outcome
+     * that waiting threads pick up.
+     */
+    private static class SingletonCreation {
+
+        private final Thread creator;
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private volatile Object earlyReference;
+
+        private Object instance;
+
+        private RuntimeException failure;
+
+        private SingletonCreation(Thread creator) {
+            this.creator = creator;
+        }
+
+        private void done(Object instance, RuntimeException failure) {
+            this.instance = instance;
+            this.failure = failure;
+            this.latch.countDown();
+        }
+
+        private Object await(String beanName) throws BeansException {
+            try {
+                this.latch.await();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new BeanCreationException("Interrupted while waiting for singleton bean '" + beanName +
+                        "' to be created", ex);
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            return this.instance;
+        }
+    }
+
 }
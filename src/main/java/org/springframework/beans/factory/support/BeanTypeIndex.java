@@ -0,0 +1,123 @@
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of bean names by type: maps each class and interface in the
+ * hierarchy of a bean's class to the names of the beans of that type,
+ * turning by-type queries into lookups instead of full scans.
+ *
+ * <p>Thread-safe: lookups don't lock, and registration and removal
+ * of different beans may happen concurrently.
+ *
+ * @see AbstractBeanFactory#getSingletonNames
+ */
+class BeanTypeIndex {
+
+    private static final String[] EMPTY_NAMES = new String[0];
+
+    /** Class of each indexed bean, keyed by bean name */
+    private final Map beanTypes = new ConcurrentHashMap();
+
+    /** Set of bean names, keyed by each class and interface they match */
+    private final ConcurrentMap beanNamesByType = new ConcurrentHashMap();
+
+    /**
+     * Cached hierarchies: List of all superclasses and interfaces of each Class.
+     * Shared by all indexes, without keeping classes from being unloaded.
+     */
+    private static final ClassValue typeHierarchies = new ClassValue() {
+        protected Object computeValue(Class clazz) {
+            Set types = new LinkedHashSet();
+            for (Class current = clazz; current != null; current = current.getSuperclass()) {
+                types.add(current);
+                addInterfaces(current, types);
+            }
+            return Collections.unmodifiableList(new ArrayList(types));
+        }
+    };
+
+    /**
+     * Add the given bean to the index, replacing a previous entry for the same name.
+     * @param beanName the name of the bean
+     * @param beanClass the class of the bean
+     */
+    public void add(String beanName, Class beanClass) {
+        Class oldClass = (Class) this.beanTypes.put(beanName, beanClass);
+        if (oldClass != null && !oldClass.equals(beanClass)) {
+            removeFromTypes(beanName, oldClass);
+        }
+        for (Iterator it = getTypeHierarchy(beanClass).iterator(); it.hasNext();) {
+            Class type = (Class) it.next();
+            Set names = (Set) this.beanNamesByType.get(type);
+            if (names == null) {
+                Set newNames = Collections.newSetFromMap(new ConcurrentHashMap());
+                names = (Set) this.beanNamesByType.putIfAbsent(type, newNames);
+                if (names == null) {
+                    names = newNames;
+                }
+            }
+            names.add(beanName);
+        }
+    }
+
+    /**
+     * Remove the given bean from the index, if present.
+     * @param beanName the name of the bean
+     */
+    public void remove(String beanName) {
+        Class beanClass = (Class) this.beanTypes.remove(beanName);
+        if (beanClass != null) {
+            removeFromTypes(beanName, beanClass);
+        }
+    }
+
+    /**
+     * Return the names of all indexed beans that match the given type
+     * (including subclasses and implementations).
+     * @param type class or interface to match, or null for all bean names
+     * @return the matching bean names, or an empty array if none
+     */
+    public String[] getNames(Class type) {
+        Set names = (type != null ? (Set) this.beanNamesByType.get(type) : this.beanTypes.keySet());
+        if (names == null) {
+            return EMPTY_NAMES;
+        }
+        return (String[]) names.toArray(new String[names.size()]);
+    }
+
+    private void removeFromTypes(String beanName, Class beanClass) {
+        for (Iterator it = getTypeHierarchy(beanClass).iterator(); it.hasNext();) {
+            Set names = (Set) this.beanNamesByType.get(it.next());
+            if (names != null) {
+                names.remove(beanName);
+            }
+        }
+    }
+
+    /**
+     * Return the given class, all its superclasses and all interfaces
+     * they implement, including superinterfaces.
+     */
+    private List getTypeHierarchy(Class clazz) {
+        return (List) typeHierarchies.get(clazz);
+    }
+
+    private static void addInterfaces(Class clazz, Set types) {
+        Class[] interfaces = clazz.getInterfaces();
+        for (int i = 0; i < interfaces.length; i++) {
+            if (types.add(interfaces[i])) {
+                addInterfaces(interfaces[i], types);
+            }
+        }
+    }
+
+}
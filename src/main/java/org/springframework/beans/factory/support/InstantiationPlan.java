@@ -0,0 +1,99 @@
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Immutable plan for instantiating beans of a RootBeanDefinition, compiled on
+ * first creation and reused for every further instance, in particular for
+ * prototypes. Holds whether to go through constructor resolution, and the
+ * constructor chosen there along with its parameter types.
+ *
+ * <p>Discarded by RootBeanDefinition when its autowire mode changes, and when
+ * constructor argument values have been added or removed since compilation.
+ * A resolved constructor is only reused for the argument signature that it
+ * has been resolved for.
+ *
+ * @see RootBeanDefinition#getInstantiationPlan
+ * @see AbstractAutowireCapableBeanFactory#createBean
+ */
+final class InstantiationPlan {
+
+    private final boolean constructorResolution;
+
+    private final Constructor constructor;
+
+    private final Class[] parameterTypes;
+
+    private final int argumentCount;
+
+    private final Object signatureKey;
+
+    /**
+     * Create a plan that has not resolved a constructor (yet).
+     * @param constructorResolution whether to instantiate through constructor
+     * resolution rather than the no-arg constructor
+     * @param argumentCount the number of constructor argument values
+     * of the bean definition the plan is compiled for
+     */
+    InstantiationPlan(boolean constructorResolution, int argumentCount) {
+        this.constructorResolution = constructorResolution;
+        this.constructor = null;
+        this.parameterTypes = null;
+        this.argumentCount = argumentCount;
+        this.signatureKey = null;
+    }
+
+    /**
+     * Create a plan for constructor resolution with the given resolved constructor.
+     * @param constructor the constructor to use
+     * @param argumentCount the number of constructor argument values
+     * of the bean definition the plan is compiled for
+     * @param signatureKey the key of the argument signature that the
+     * constructor has been resolved for
+     */
+    InstantiationPlan(Constructor constructor, int argumentCount, Object signatureKey) {
+        this.constructorResolution = true;
+        this.constructor = constructor;
+        this.parameterTypes = constructor.getParameterTypes();
+        this.argumentCount = argumentCount;
+        this.signatureKey = signatureKey;
+    }
+
+    /**
+     * Return whether to instantiate through constructor resolution.
+     */
+    boolean isConstructorResolution() {
+        return constructorResolution;
+    }
+
+    /**
+     * Return the resolved constructor, or null if not resolved yet.
+     */
+    Constructor getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * Return the parameter types of the resolved constructor (not to be modified),
+     * or null if not resolved yet.
+     */
+    Class[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * Return the number of constructor argument values that the plan was compiled for.
+     */
+    int getArgumentCount() {
+        return argumentCount;
+    }
+
+    /**
+     * Return the key of the argument signature that the constructor has been
+     * resolved for, or null if not resolved yet.
+     */
+    Object getSignatureKey() {
+        return signatureKey;
+    }
+
+}
@@ -31,6 +31,9 @@ public class RootBeanDefinition  extends AbstractBeanDefinition {
     private String initMethodName;
     private String destroyMethodName;
 
+    /** Plan compiled on first creation of a bean from this definition */
+    private volatile InstantiationPlan instantiationPlan;
+
     /**
      * Create a new RootBeanDefinition for a singleton,
      * using the given autowire mode.
@@ -177,6 +180,7 @@ public class RootBeanDefinition  extends AbstractBeanDefinition {
      */
     public void setAutowireMode(int autowireMode) {
         this.autowireMode = autowireMode;
+        this.instantiationPlan = null;
     }
 
     /**
@@ -279,6 +283,35 @@ public class RootBeanDefinition  extends AbstractBeanDefinition {
         return this.destroyMethodName;
     }
 
+    /**
+     * Return the number of constructor argument values of this definition.
+     */
+    int getConstructorArgumentCount() {
+        return (this.constructorArgumentValues != null ? this.constructorArgumentValues.getNrOfArguments() : 0);
+    }
+
+    /**
+     * Return the instantiation plan compiled on first creation of a bean
+     * from this definition, or null if none has been compiled yet or the
+     * constructor argument values have changed since: the holder returned
+     * by getConstructorArgumentValues may be modified at any time.
+     */
+    InstantiationPlan getInstantiationPlan() {
+        InstantiationPlan plan = this.instantiationPlan;
+        if (plan != null && plan.getArgumentCount() != getConstructorArgumentCount()) {
+            this.instantiationPlan = null;
+            return null;
+        }
+        return plan;
+    }
+
+    /**
+     * Set the instantiation plan for beans created from this definition.
+     */
+    void setInstantiationPlan(InstantiationPlan instantiationPlan) {
+        this.instantiationPlan = instantiationPlan;
+    }
+
     public void validate() throws BeanDefinitionValidationException {
         super.validate();
         if (this.beanClass == null) {
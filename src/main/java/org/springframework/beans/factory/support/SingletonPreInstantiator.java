@@ -0,0 +1,245 @@
+package org.springframework.beans.factory.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanCreationException;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates a set of singletons on an Executor, respecting the dependencies
+ * between them: each bean is scheduled as soon as all the beans it depends
+ * on have been created, so independent beans get created concurrently.
+ *
+ * <p>Beans that are part of a dependency cycle, or depend on one, are created
+ * one after another on the calling thread once all other beans are done,
+ * resolving circular references like sequential pre-instantiation does.
+ * So are autowired beans and the beans depending on them, as the dependencies
+ * resolved by autowiring are not known before creation.
+ *
+ * <p>Only dependencies expressed in the bean definitions are visible: beans
+ * that look up other beans themselves, for example through BeanFactoryAware,
+ * may still run into singletons created concurrently by another thread, and
+ * fail with a BeanCurrentlyInCreationException if those form a cycle.
+ *
+ * @see AbstractAutowireCapableBeanFactory#setPreInstantiationExecutor
+ */
+@Slf4j
+class SingletonPreInstantiator {
+
+    private final AbstractAutowireCapableBeanFactory beanFactory;
+
+    private final Executor executor;
+
+    /** Nodes of the dependency graph, keyed by bean name, in registration order */
+    private final Map nodes = new LinkedHashMap();
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private AtomicInteger remaining;
+
+    private volatile Throwable failure;
+
+    SingletonPreInstantiator(AbstractAutowireCapableBeanFactory beanFactory, Executor executor) {
+        this.beanFactory = beanFactory;
+        this.executor = executor;
+    }
+
+    /**
+     * Create the given singletons.
+     * @param definitions Map of RootBeanDefinitions of non-lazy singletons, keyed by bean name
+     */
+    public void preInstantiate(Map definitions) {
+        for (Iterator it = definitions.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            this.nodes.put(entry.getKey(), new Node((String) entry.getKey(), (RootBeanDefinition) entry.getValue()));
+        }
+        // link nodes: dependencies outside the given set are created on demand
+        for (Iterator it = this.nodes.values().iterator(); it.hasNext();) {
+            Node node = (Node) it.next();
+            Set dependencies = this.beanFactory.getReferencedBeanNames(node.definition);
+            for (Iterator depIt = dependencies.iterator(); depIt.hasNext();) {
+                Node dependency = (Node) this.nodes.get(depIt.next());
+                if (dependency != null && dependency != node) {
+                    dependency.dependents.add(node);
+                    node.pendingDependencies.incrementAndGet();
+                }
+            }
+        }
+
+        List initialNodes = new ArrayList();
+        List sequentialNodes = new ArrayList();
+        findSchedulableNodes(initialNodes, sequentialNodes);
+        if (log.isInfoEnabled()) {
+            log.info("Pre-instantiating " + this.nodes.size() + " singletons concurrently in factory {" +
+                    this.beanFactory + "}; " + sequentialNodes.size() + " in dependency cycles");
+        }
+
+        if (this.remaining.get() > 0) {
+            LinkedList inlineNodes = new LinkedList();
+            for (Iterator it = initialNodes.iterator(); it.hasNext();) {
+                Node node = (Node) it.next();
+                if (!schedule(node)) {
+                    inlineNodes.add(node);
+                }
+            }
+            runInline(inlineNodes);
+            try {
+                this.finished.await();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new BeanCreationException("Interrupted while pre-instantiating singletons", ex);
+            }
+            if (this.failure instanceof RuntimeException) {
+                throw (RuntimeException) this.failure;
+            }
+            if (this.failure instanceof Error) {
+                throw (Error) this.failure;
+            }
+        }
+
+        for (Iterator it = sequentialNodes.iterator(); it.hasNext();) {
+            Node node = (Node) it.next();
+            this.beanFactory.preInstantiateSingleton(node.beanName, node.definition);
+        }
+    }
+
+    /**
+     * Determine the nodes without dependencies, to start with, and the nodes that
+     * will never become ready due to dependency cycles or autowiring. Sets the
+     * number of nodes that will be created concurrently.
+     */
+    private void findSchedulableNodes(List initialNodes, List sequentialNodes) {
+        Map pendingCounts = new HashMap();
+        LinkedList ready = new LinkedList();
+        for (Iterator it = this.nodes.values().iterator(); it.hasNext();) {
+            Node node = (Node) it.next();
+            int pending = node.pendingDependencies.get();
+            pendingCounts.put(node, new int[] {pending});
+            // autowired beans never become ready: their dependencies are unknown
+            if (pending == 0 && node.definition.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_NO) {
+                initialNodes.add(node);
+                ready.add(node);
+            }
+        }
+        Set reachable = new HashSet();
+        while (!ready.isEmpty()) {
+            Node node = (Node) ready.removeFirst();
+            reachable.add(node);
+            for (Iterator it = node.dependents.iterator(); it.hasNext();) {
+                Node dependent = (Node) it.next();
+                int[] pending = (int[]) pendingCounts.get(dependent);
+                if (--pending[0] == 0 &&
+                        dependent.definition.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_NO) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        for (Iterator it = this.nodes.values().iterator(); it.hasNext();) {
+            Node node = (Node) it.next();
+            if (reachable.contains(node)) {
+                node.concurrent = true;
+            }
+            else {
+                sequentialNodes.add(node);
+            }
+        }
+        this.remaining = new AtomicInteger(reachable.size());
+    }
+
+    /**
+     * Hand the given node to the executor.
+     * @return whether the executor accepted the node; if not, as it is
+     * saturated or shut down, the node is to be created on the current thread
+     */
+    private boolean schedule(Node node) {
+        try {
+            this.executor.execute(node);
+            return true;
+        }
+        catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Create the given nodes on the current thread, along with dependents that
+     * become ready but get rejected by the executor. Loops instead of recursing,
+     * so that a saturated executor cannot overflow the stack on deep graphs.
+     */
+    private void runInline(LinkedList inlineNodes) {
+        while (!inlineNodes.isEmpty()) {
+            ((Node) inlineNodes.removeFirst()).create(inlineNodes);
+        }
+    }
+
+    private void recordFailure(Throwable ex) {
+        synchronized (this) {
+            if (this.failure == null) {
+                this.failure = ex;
+            }
+        }
+    }
+
+
+    /**
+     * Node of the dependency graph, creating its singleton when run.
+     */
+    private class Node implements Runnable {
+
+        private final String beanName;
+
+        private final RootBeanDefinition definition;
+
+        private final List dependents = new ArrayList();
+
+        private final AtomicInteger pendingDependencies = new AtomicInteger();
+
+        /** Whether to create this node concurrently, rather than sequentially at the end */
+        private boolean concurrent;
+
+        private Node(String beanName, RootBeanDefinition definition) {
+            this.beanName = beanName;
+            this.definition = definition;
+        }
+
+        public void run() {
+            LinkedList inlineNodes = new LinkedList();
+            create(inlineNodes);
+            runInline(inlineNodes);
+        }
+
+        /**
+         * Create the singleton, then schedule the dependents that became ready.
+         * @param inlineNodes list to add dependents rejected by the executor to
+         */
+        private void create(List inlineNodes) {
+            try {
+                // skip further creation once a singleton has failed
+                if (failure == null) {
+                    beanFactory.preInstantiateSingleton(this.beanName, this.definition);
+                }
+            }
+            catch (Throwable ex) {
+                recordFailure(ex);
+            }
+            finally {
+                for (Iterator it = this.dependents.iterator(); it.hasNext();) {
+                    Node dependent = (Node) it.next();
+                    if (dependent.pendingDependencies.decrementAndGet() == 0 && dependent.concurrent &&
+                            !schedule(dependent)) {
+                        inlineNodes.add(dependent);
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    finished.countDown();
+                }
+            }
+        }
+    }
+
+}
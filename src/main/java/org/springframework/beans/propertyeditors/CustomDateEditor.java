@@ -19,10 +19,16 @@ package org.springframework.beans.propertyeditors;
 import java.beans.PropertyEditorSupport;
 import java.text.DateFormat;
 import java.text.ParseException;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 
+import org.springframework.util.DateTimeParser;
+
 /**
- * PropertyEditor for Date, supporting a custom DateFormat.
+ * PropertyEditor for Date, supporting a custom DateFormat. Alternatively
+ * parses and renders Date or java.time values with an immutable
+ * DateTimeFormatter, through a DateTimeParser that may be shared by any
+ * number of editors, with an optional cache for repeated values.
  *
  * <p>This is not meant to be used as system PropertyEditor but rather as
  * locale-specific date editor within custom controller code, to parse
@@ -43,6 +49,8 @@ public class CustomDateEditor extends PropertyEditorSupport {
 
 	private final DateFormat dateFormat;
 
+	private final DateTimeParser dateTimeParser;
+
 	private final boolean allowEmpty;
 
 	/**
@@ -56,17 +64,52 @@ public class CustomDateEditor extends PropertyEditorSupport {
 	 */
 	public CustomDateEditor(DateFormat dateFormat, boolean allowEmpty) {
 		this.dateFormat = dateFormat;
+		this.dateTimeParser = null;
+		this.allowEmpty = allowEmpty;
+	}
+
+	/**
+	 * Create a new instance for the given date class, using the given
+	 * DateTimeFormatter for parsing and rendering.
+	 * @param dateClass the date class: Date or one of the supported java.time types
+	 * @param formatter DateTimeFormatter to use for parsing and rendering
+	 * @param allowEmpty if empty strings should be allowed
+	 * @throws IllegalArgumentException if the date class is not supported
+	 * @see org.springframework.util.DateTimeParser
+	 */
+	public CustomDateEditor(Class dateClass, DateTimeFormatter formatter, boolean allowEmpty)
+			throws IllegalArgumentException {
+		this(new DateTimeParser(dateClass, formatter), allowEmpty);
+	}
+
+	/**
+	 * Create a new instance, using the given DateTimeParser for parsing and
+	 * rendering. The parser, including its cache, can be shared between editors.
+	 * @param dateTimeParser DateTimeParser to use for parsing and rendering
+	 * @param allowEmpty if empty strings should be allowed
+	 * @throws IllegalArgumentException if the DateTimeParser is null
+	 */
+	public CustomDateEditor(DateTimeParser dateTimeParser, boolean allowEmpty) throws IllegalArgumentException {
+		if (dateTimeParser == null) {
+			throw new IllegalArgumentException("DateTimeParser must not be null");
+		}
+		this.dateFormat = null;
+		this.dateTimeParser = dateTimeParser;
 		this.allowEmpty = allowEmpty;
 	}
 
 	/**
-	 * Parse the Date from the given text, using the specified DateFormat.
+	 * Parse the Date from the given text, using the specified DateFormat
+	 * or DateTimeParser.
 	 */
 	public void setAsText(String text) throws IllegalArgumentException {
 		if (this.allowEmpty && text.trim().equals("")) {
 			// treat empty String as null value
 			setValue(null);
 		}
+		else if (this.dateTimeParser != null) {
+			setValue(this.dateTimeParser.parse(text.trim()));
+		}
 		else {
 			try {
 				setValue(this.dateFormat.parse(text));
@@ -78,9 +121,13 @@ public class CustomDateEditor extends PropertyEditorSupport {
 	}
 
 	/**
-	 * Format the Date as String, using the specified DateFormat.
+	 * Format the Date as String, using the specified DateFormat
+	 * or DateTimeParser.
 	 */
 	public String getAsText() {
+		if (this.dateTimeParser != null) {
+			return this.dateTimeParser.format(getValue());
+		}
 		return this.dateFormat.format((Date) getValue());
 	}
 
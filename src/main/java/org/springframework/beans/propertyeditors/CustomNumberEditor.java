@@ -21,10 +21,16 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.Locale;
+
+import org.springframework.util.NumberUtils;
 
 /**
  * Property editor for any Number subclass like Integer, Long, Float, Double.
- * Uses a given NumberFormat for (locale-specific) parsing and rendering.
+ * Uses a given NumberFormat for (locale-specific) parsing and rendering,
+ * or parses directly from the text, optionally with the grouping and decimal
+ * separators of a given Locale. Direct parsing is considerably faster and
+ * does not involve any state shared with other editors.
  *
  * <p>This is not meant to be used as system PropertyEditor but rather as
  * locale-specific number editor within custom controller code, to parse
@@ -47,8 +53,41 @@ public class CustomNumberEditor extends PropertyEditorSupport {
 
 	private NumberFormat numberFormat;
 
+	private Locale locale;
+
 	private final boolean allowEmpty;
 
+	/**
+	 * Create a new instance, parsing numbers directly from the text
+	 * and rendering them with toString.
+	 * @param numberClass Number subclass to generate
+	 * @param allowEmpty if empty strings should be allowed
+	 * @throws IllegalArgumentException if an invalid numberClass has been specified
+	 * @see org.springframework.util.NumberUtils#parseNumber(String, Class)
+	 */
+	public CustomNumberEditor(Class numberClass, boolean allowEmpty) throws IllegalArgumentException {
+		this(numberClass, allowEmpty, null);
+	}
+
+	/**
+	 * Create a new instance, parsing numbers directly from the text, accepting
+	 * the grouping and decimal separators of the given Locale, and rendering
+	 * them with toString.
+	 * @param numberClass Number subclass to generate
+	 * @param allowEmpty if empty strings should be allowed
+	 * @param locale Locale whose number symbols to accept, or null for none
+	 * @throws IllegalArgumentException if an invalid numberClass has been specified
+	 * @see org.springframework.util.NumberUtils#parseNumber(String, Class, Locale)
+	 */
+	public CustomNumberEditor(Class numberClass, boolean allowEmpty, Locale locale) throws IllegalArgumentException {
+		if (!Number.class.isAssignableFrom(numberClass)) {
+			throw new IllegalArgumentException("Property class must be a subclass of Number");
+		}
+		this.numberClass = numberClass;
+		this.locale = locale;
+		this.allowEmpty = allowEmpty;
+	}
+
 	/**
 	 * Create a new instance, using the given NumberFormat for
 	 * parsing and rendering.
@@ -74,6 +113,9 @@ public class CustomNumberEditor extends PropertyEditorSupport {
 		if (this.allowEmpty && text.trim().equals("")) {
 			setValue(null);
 		}
+		else if (this.numberFormat == null) {
+			setValue(NumberUtils.parseNumber(text, this.numberClass, this.locale));
+		}
 		else {
 			try {
 				Number number = this.numberFormat.parse(text);
@@ -112,6 +154,10 @@ public class CustomNumberEditor extends PropertyEditorSupport {
 	}
 
 	public String getAsText() {
+		if (this.numberFormat == null) {
+			Object value = getValue();
+			return (value != null ? value.toString() : "");
+		}
 		return this.numberFormat.format(getValue());
 	}
 
@@ -17,11 +17,6 @@
 package org.springframework.beans.propertyeditors;
 
 import java.beans.PropertyEditorSupport;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Properties;
 
 /**
@@ -32,7 +27,9 @@ import java.util.Properties;
  * editors in this package are automatically registered by BeanWrapperImpl.
  *
  * <p>The required format is defined in java.util.Properties documentation.
- * Each property must be on a new line.
+ * Each property must be on a new line. The text is parsed directly in a
+ * single pass, without conversion to bytes, so characters outside of
+ * ISO-8859-1 are preserved.
  *
  * @author Rod Johnson
  * @version $Id: PropertiesEditor.java,v 1.5 2004/03/18 02:46:13 trisberg Exp $
@@ -51,40 +48,187 @@ public class PropertiesEditor extends PropertyEditorSupport {
 		if (text == null) {
 			throw new IllegalArgumentException("Cannot set Properties to null");
 		}
+		setValue(parse(text));
+	}
+
+	/**
+	 * Parse the given text in the format of Properties.load, in one pass over
+	 * the String: lines whose first non-whitespace character is one of the
+	 * COMMENT_MARKERS are skipped while reading, lines ending with a backslash
+	 * are continued, keys end at the first unescaped '=', ':' or whitespace,
+	 * and escapes including Unicode escapes are resolved. Keys starting with
+	 * one of the COMMENT_MARKERS are skipped as well.
+	 * @throws IllegalArgumentException if the text contains a malformed
+	 * Unicode escape
+	 */
+	private Properties parse(String text) {
 		Properties props = new Properties();
-		try {
-			props.load(new ByteArrayInputStream(text.getBytes()));
-			dropComments(props);
-		}
-		catch (IOException ex) {
-			// shouldn't happen
-			throw new IllegalArgumentException("Failed to parse [" + text + "] into Properties");
+		StringBuffer line = new StringBuffer();
+		StringBuffer buf = new StringBuffer();
+		int pos = 0;
+		while ((pos = readLine(text, pos, line)) != -1) {
+			int limit = line.length();
+			int keyLen = 0;
+			int valueStart = limit;
+			boolean hasSeparator = false;
+			boolean precedingBackslash = false;
+			while (keyLen < limit) {
+				char c = line.charAt(keyLen);
+				if ((c == '=' || c == ':') && !precedingBackslash) {
+					valueStart = keyLen + 1;
+					hasSeparator = true;
+					break;
+				}
+				else if (isWhitespace(c) && !precedingBackslash) {
+					valueStart = keyLen + 1;
+					break;
+				}
+				precedingBackslash = (c == '\\' && !precedingBackslash);
+				keyLen++;
+			}
+			while (valueStart < limit) {
+				char c = line.charAt(valueStart);
+				if (!isWhitespace(c)) {
+					if (!hasSeparator && (c == '=' || c == ':')) {
+						hasSeparator = true;
+					}
+					else {
+						break;
+					}
+				}
+				valueStart++;
+			}
+			String key = unescape(line, 0, keyLen, buf);
+			// unescape skipped values too, to reject malformed escapes like Properties.load
+			String value = unescape(line, valueStart, limit, buf);
+			if (key.length() == 0 || COMMENT_MARKERS.indexOf(key.charAt(0)) == -1) {
+				props.put(key, value);
+			}
 		}
-		setValue(props);
+		return props;
 	}
-	
+
 	/**
-	 * Remove comment lines. We shouldn't need to do this, according to
-	 * java.util.Properties documentation, but if we don't we end up with
-	 * properties like "#this=is a comment" if we have whitespace before
-	 * the comment marker.
+	 * Read the next logical line, skipping blank lines and comment lines,
+	 * joining continued lines and removing leading whitespace.
+	 * @param text the text to read from
+	 * @param pos the position to start reading at
+	 * @param line the buffer to read the logical line into, escapes still in place
+	 * @return the position after the logical line, or -1 if there is none
 	 */
-	private void dropComments(Properties props) {
-		Iterator keys = props.keySet().iterator();
-		List commentKeys = new ArrayList();
-		while (keys.hasNext()) {
-			String key = (String) keys.next();
-			// A comment line starts with one of our comment markers
-			if (key.length() > 0 && COMMENT_MARKERS.indexOf(key.charAt(0)) != -1) {
-				// We can't actually remove it as we'll get a 
-				// concurrent modification exception with the iterator
-				commentKeys.add(key);
+	private static int readLine(String text, int pos, StringBuffer line) {
+		line.setLength(0);
+		int length = text.length();
+		boolean skipWhitespace = true;
+		boolean appendedLineBegin = false;
+		boolean newLine = true;
+		boolean commentLine = false;
+		boolean precedingBackslash = false;
+		boolean skipLF = false;
+		while (pos < length) {
+			char c = text.charAt(pos++);
+			if (skipLF) {
+				skipLF = false;
+				if (c == '\n') {
+					continue;
+				}
+			}
+			if (skipWhitespace) {
+				if (isWhitespace(c) || (!appendedLineBegin && (c == '\r' || c == '\n'))) {
+					continue;
+				}
+				skipWhitespace = false;
+				appendedLineBegin = false;
+			}
+			if (newLine) {
+				newLine = false;
+				if (COMMENT_MARKERS.indexOf(c) != -1) {
+					commentLine = true;
+					continue;
+				}
+			}
+			if (c != '\n' && c != '\r') {
+				if (!commentLine) {
+					line.append(c);
+					precedingBackslash = (c == '\\' && !precedingBackslash);
+				}
+			}
+			else if (commentLine || line.length() == 0) {
+				// end of comment or empty line: start over
+				commentLine = false;
+				newLine = true;
+				skipWhitespace = true;
+				line.setLength(0);
+			}
+			else if (precedingBackslash) {
+				// line continuation: drop backslash, skip leading whitespace of next line
+				line.setLength(line.length() - 1);
+				skipWhitespace = true;
+				appendedLineBegin = true;
+				precedingBackslash = false;
+				skipLF = (c == '\r');
+			}
+			else {
+				return pos;
 			}
 		}
-		for (Iterator it = commentKeys.iterator(); it.hasNext();) {
-			String key = (String) it.next();
-			props.remove(key);
+		if (commentLine || line.length() == 0) {
+			return -1;
 		}
+		if (precedingBackslash) {
+			line.setLength(line.length() - 1);
+		}
+		return pos;
+	}
+
+	/**
+	 * Resolve the escapes in the given range of the given line.
+	 */
+	private static String unescape(StringBuffer line, int start, int end, StringBuffer buf) {
+		buf.setLength(0);
+		int pos = start;
+		while (pos < end) {
+			char c = line.charAt(pos++);
+			if (c != '\\' || pos == end) {
+				buf.append(c);
+				continue;
+			}
+			c = line.charAt(pos++);
+			if (c == 'u') {
+				if (pos + 4 > end) {
+					throw new IllegalArgumentException("Malformed \\uxxxx encoding in [" + line + "]");
+				}
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					int digit = Character.digit(line.charAt(pos++), 16);
+					if (digit == -1) {
+						throw new IllegalArgumentException("Malformed \\uxxxx encoding in [" + line + "]");
+					}
+					value = (value << 4) + digit;
+				}
+				buf.append((char) value);
+			}
+			else if (c == 't') {
+				buf.append('\t');
+			}
+			else if (c == 'r') {
+				buf.append('\r');
+			}
+			else if (c == 'n') {
+				buf.append('\n');
+			}
+			else if (c == 'f') {
+				buf.append('\f');
+			}
+			else {
+				buf.append(c);
+			}
+		}
+		return buf.toString();
+	}
+
+	private static boolean isWhitespace(char c) {
+		return (c == ' ' || c == '\t' || c == '\f');
 	}
 
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe cache of a value per Class, computed on first access, that
+ * does not keep ClassLoaders from being garbage-collected.
+ *
+ * <p>Values for classes loaded by the ClassLoader of this class, or by one
+ * of its descendants, are kept with the class itself in a ClassValue, as
+ * such classes cannot outlive the classes of the values. Values for classes
+ * of ancestor ClassLoaders, such as JDK classes, are kept in a map held by
+ * the cache instead: kept with the class, they would keep this ClassLoader,
+ * e.g. that of a web application, from being garbage-collected. Values for
+ * classes of unrelated ClassLoaders are computed on each access.
+ *
+ * <p>Like with ClassValue, only one value per class is ever returned,
+ * even if computed concurrently.
+ */
+public abstract class ClassCache {
+
+	private static final ClassLoader cacheClassLoader = ClassCache.class.getClassLoader();
+
+	private final ClassValue localValues = new ClassValue() {
+		protected Object computeValue(Class type) {
+			return ClassCache.this.computeValue(type);
+		}
+	};
+
+	/** Values keyed by classes of ancestor ClassLoaders */
+	private final ConcurrentMap ancestorValues = new ConcurrentHashMap();
+
+	/**
+	 * Return the value for the given class, computing it on first access.
+	 * @param type the class to return the value for
+	 * @return the value
+	 */
+	public Object get(Class type) {
+		ClassLoader classLoader = type.getClassLoader();
+		if (isDescendant(classLoader)) {
+			return this.localValues.get(type);
+		}
+		if (!isAncestor(classLoader)) {
+			return computeValue(type);
+		}
+		Object value = this.ancestorValues.get(type);
+		if (value == null) {
+			value = computeValue(type);
+			Object existingValue = this.ancestorValues.putIfAbsent(type, value);
+			if (existingValue != null) {
+				value = existingValue;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Compute the value for the given class.
+	 * @param type the class to compute the value for
+	 * @return the value, not null
+	 */
+	protected abstract Object computeValue(Class type);
+
+	private static boolean isDescendant(ClassLoader classLoader) {
+		if (cacheClassLoader == null) {
+			// loaded by the bootstrap ClassLoader
+			return true;
+		}
+		for (ClassLoader current = classLoader; current != null; current = current.getParent()) {
+			if (current == cacheClassLoader) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isAncestor(ClassLoader classLoader) {
+		if (classLoader == null) {
+			return true;
+		}
+		for (ClassLoader current = cacheClassLoader.getParent(); current != null; current = current.getParent()) {
+			if (current == classLoader) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
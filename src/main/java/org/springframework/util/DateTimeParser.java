@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses and formats date values of a given class with an immutable
+ * DateTimeFormatter. Supports java.util.Date and the java.time types
+ * Instant, LocalDate, LocalDateTime, LocalTime, ZonedDateTime and
+ * OffsetDateTime. In contrast to DateFormat, instances are thread-safe:
+ * a single parser can be shared by any number of editors and converters.
+ *
+ * <p>Text without zone information is interpreted in the zone of the
+ * formatter, or the default zone if the formatter does not specify one,
+ * when parsing into a Date or Instant. Text without time of day is
+ * interpreted as start of day.
+ *
+ * <p>Optionally caches parsed values keyed by text, for values that repeat,
+ * like the dates in a batch import. The cache is bounded: when full, the
+ * oldest entries are evicted. Date values are cached as Instant, as Date
+ * is mutable: each parse returns a new Date instance.
+ *
+ * @see org.springframework.beans.propertyeditors.CustomDateEditor
+ */
+public class DateTimeParser {
+
+	private final Class dateClass;
+
+	private final DateTimeFormatter formatter;
+
+	private final ZoneId zone;
+
+	private final int cacheLimit;
+
+	/** Parsed values keyed by text, or null if not caching */
+	private final Map cache;
+
+	/** Cached texts in caching order */
+	private final Queue cacheOrder;
+
+	private final AtomicInteger cacheSize = new AtomicInteger();
+
+	/**
+	 * Create a new parser for the given class, without caching.
+	 * @param dateClass the date class to parse into: Date, Instant, LocalDate,
+	 * LocalDateTime, LocalTime, ZonedDateTime or OffsetDateTime
+	 * @param formatter the DateTimeFormatter to use for parsing and formatting
+	 * @throws IllegalArgumentException if the date class is not supported
+	 */
+	public DateTimeParser(Class dateClass, DateTimeFormatter formatter) throws IllegalArgumentException {
+		this(dateClass, formatter, 0);
+	}
+
+	/**
+	 * Create a new parser for the given class, caching up to the
+	 * given number of parsed values.
+	 * @param dateClass the date class to parse into: Date, Instant, LocalDate,
+	 * LocalDateTime, LocalTime, ZonedDateTime or OffsetDateTime
+	 * @param formatter the DateTimeFormatter to use for parsing and formatting
+	 * @param cacheLimit maximum number of parsed values to cache, 0 for no caching
+	 * @throws IllegalArgumentException if the date class is not supported
+	 */
+	public DateTimeParser(Class dateClass, DateTimeFormatter formatter, int cacheLimit)
+			throws IllegalArgumentException {
+		if (!(Date.class.equals(dateClass) || Instant.class.equals(dateClass) ||
+				LocalDate.class.equals(dateClass) || LocalDateTime.class.equals(dateClass) ||
+				LocalTime.class.equals(dateClass) || ZonedDateTime.class.equals(dateClass) ||
+				OffsetDateTime.class.equals(dateClass))) {
+			throw new IllegalArgumentException("Unsupported date class [" + dateClass + "]");
+		}
+		if (formatter == null) {
+			throw new IllegalArgumentException("DateTimeFormatter must not be null");
+		}
+		this.dateClass = dateClass;
+		this.formatter = formatter;
+		this.zone = (formatter.getZone() != null ? formatter.getZone() : ZoneId.systemDefault());
+		this.cacheLimit = cacheLimit;
+		this.cache = (cacheLimit > 0 ? new ConcurrentHashMap() : null);
+		this.cacheOrder = (cacheLimit > 0 ? new ConcurrentLinkedQueue() : null);
+	}
+
+	/**
+	 * Return the date class that this parser parses into.
+	 */
+	public Class getDateClass() {
+		return dateClass;
+	}
+
+	/**
+	 * Parse the given text into an instance of the date class.
+	 * @param text the text to parse
+	 * @return the parsed value
+	 * @throws IllegalArgumentException if the text cannot be parsed
+	 */
+	public Object parse(String text) throws IllegalArgumentException {
+		Object value = (this.cache != null ? this.cache.get(text) : null);
+		if (value == null) {
+			try {
+				value = doParse(this.formatter.parse(text));
+			}
+			catch (DateTimeException ex) {
+				throw new IllegalArgumentException("Could not parse date: " + ex.getMessage());
+			}
+			if (this.cache != null && this.cache.put(text, value) == null) {
+				this.cacheOrder.add(text);
+				if (this.cacheSize.incrementAndGet() > this.cacheLimit) {
+					Object eldest = this.cacheOrder.poll();
+					if (eldest != null && this.cache.remove(eldest) != null) {
+						this.cacheSize.decrementAndGet();
+					}
+				}
+			}
+		}
+		return (this.dateClass == Date.class ? Date.from((Instant) value) : value);
+	}
+
+	/**
+	 * Resolve the parsed fields into an immutable value: an Instant for Date.
+	 */
+	private Object doParse(TemporalAccessor parsed) {
+		if (this.dateClass == Date.class || this.dateClass == Instant.class) {
+			if (parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+				return Instant.from(parsed);
+			}
+			if (parsed.isSupported(ChronoField.HOUR_OF_DAY)) {
+				return LocalDateTime.from(parsed).atZone(this.zone).toInstant();
+			}
+			return LocalDate.from(parsed).atStartOfDay(this.zone).toInstant();
+		}
+		else if (this.dateClass == LocalDate.class) {
+			return LocalDate.from(parsed);
+		}
+		else if (this.dateClass == LocalDateTime.class) {
+			return LocalDateTime.from(parsed);
+		}
+		else if (this.dateClass == LocalTime.class) {
+			return LocalTime.from(parsed);
+		}
+		else if (this.dateClass == ZonedDateTime.class) {
+			return ZonedDateTime.from(parsed);
+		}
+		else {
+			return OffsetDateTime.from(parsed);
+		}
+	}
+
+	/**
+	 * Format the given value of the date class.
+	 * @param value the value to format
+	 * @return the formatted text, or an empty String for null
+	 * @throws IllegalArgumentException if the value cannot be formatted
+	 */
+	public String format(Object value) throws IllegalArgumentException {
+		if (value == null) {
+			return "";
+		}
+		try {
+			if (value instanceof Date) {
+				Instant instant = Instant.ofEpochMilli(((Date) value).getTime());
+				return this.formatter.format(ZonedDateTime.ofInstant(instant, this.zone));
+			}
+			if (value instanceof Instant) {
+				return this.formatter.format(ZonedDateTime.ofInstant((Instant) value, this.zone));
+			}
+			return this.formatter.format((TemporalAccessor) value);
+		}
+		catch (DateTimeException ex) {
+			throw new IllegalArgumentException("Could not format date: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Return the number of parsed values currently cached.
+	 */
+	public int getCacheSize() {
+		return this.cacheSize.get();
+	}
+
+}
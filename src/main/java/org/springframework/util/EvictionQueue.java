@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe queue of the items of a bounded cache, in caching order,
+ * deciding which items to evict when the cache exceeds its limit.
+ *
+ * <p>Items are evicted oldest first, but items that have been used since they
+ * were cached or last considered for eviction get a second chance: they are
+ * requeued instead. Each eviction round considers each item at most twice,
+ * so that it ends even if all items keep being used.
+ *
+ * <p>Subclasses track the use of the items and evict them from the cache.
+ */
+public abstract class EvictionQueue {
+
+	private final Queue queue = new ConcurrentLinkedQueue();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Add a newly cached item.
+	 * @param item the item to add
+	 */
+	public void add(Object item) {
+		this.size.incrementAndGet();
+		this.queue.add(item);
+	}
+
+	/**
+	 * Remove an item that has left the cache other than by eviction.
+	 * @param item the item to remove
+	 * @return whether the item was still queued
+	 */
+	public boolean remove(Object item) {
+		if (this.queue.remove(item)) {
+			this.size.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the approximate number of queued items.
+	 */
+	public int size() {
+		return this.size.get();
+	}
+
+	/**
+	 * Evict items until no more than the given number of items are queued,
+	 * or until each item has been considered twice.
+	 * @param limit the maximum number of items to keep
+	 */
+	public void evict(int limit) {
+		for (int attempts = 2 * this.size.get(); attempts > 0 && this.size.get() > limit; attempts--) {
+			Object item = this.queue.poll();
+			if (item == null) {
+				return;
+			}
+			if (checkUsedAndReset(item)) {
+				this.queue.add(item);
+			}
+			else {
+				this.size.decrementAndGet();
+				doEvict(item);
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the given item has been used since it was cached or
+	 * last considered for eviction, and reset that state.
+	 * @param item the item considered for eviction
+	 * @return whether to give the item a second chance
+	 */
+	protected abstract boolean checkUsedAndReset(Object item);
+
+	/**
+	 * Evict the given item, already removed from this queue, from the cache.
+	 * @param item the item to evict
+	 */
+	protected abstract void doEvict(Object item);
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Miscellaneous number utility methods, for parsing numbers of any of the
+ * standard Number classes directly from text. In contrast to NumberFormat,
+ * all methods are stateless and thus safe for concurrent use.
+ *
+ * <p>Locale-specific grouping and decimal separators are handled through
+ * immutable symbol tables, derived once per Locale and cached.
+ *
+ * @see org.springframework.beans.propertyeditors.CustomNumberEditor
+ */
+public abstract class NumberUtils {
+
+	/** Immutable NumberSymbols keyed by Locale */
+	private static final Map symbolsCache = new ConcurrentHashMap();
+
+	/**
+	 * Parse the given text into a number instance of the given target class,
+	 * ignoring leading and trailing whitespace. Integer types accept hex
+	 * values with "0x", "0X" or "#" prefix.
+	 * @param text the text to parse
+	 * @param targetClass the target Number class: Byte, Short, Integer, Long,
+	 * BigInteger, Float, Double or BigDecimal, or Number itself, which
+	 * yields a BigDecimal so that no digits are lost
+	 * @return the parsed number
+	 * @throws IllegalArgumentException if the target class is not supported,
+	 * or NumberFormatException if the text is not a valid number
+	 */
+	public static Number parseNumber(String text, Class targetClass) throws IllegalArgumentException {
+		String trimmed = text.trim();
+		if (targetClass.equals(Integer.class)) {
+			return (isHexNumber(trimmed) ? Integer.decode(trimmed) : Integer.valueOf(trimmed));
+		}
+		else if (targetClass.equals(Long.class)) {
+			return (isHexNumber(trimmed) ? Long.decode(trimmed) : Long.valueOf(trimmed));
+		}
+		else if (targetClass.equals(Short.class)) {
+			return (isHexNumber(trimmed) ? Short.decode(trimmed) : Short.valueOf(trimmed));
+		}
+		else if (targetClass.equals(Byte.class)) {
+			return (isHexNumber(trimmed) ? Byte.decode(trimmed) : Byte.valueOf(trimmed));
+		}
+		else if (targetClass.equals(BigInteger.class)) {
+			return (isHexNumber(trimmed) ? decodeBigInteger(trimmed) : new BigInteger(trimmed));
+		}
+		else if (targetClass.equals(Double.class)) {
+			return Double.valueOf(trimmed);
+		}
+		else if (targetClass.equals(Float.class)) {
+			return Float.valueOf(trimmed);
+		}
+		else if (targetClass.equals(BigDecimal.class) || targetClass.equals(Number.class)) {
+			return new BigDecimal(trimmed);
+		}
+		else {
+			throw new IllegalArgumentException("Cannot convert String [" + text + "] to target class [" +
+					targetClass.getName() + "]");
+		}
+	}
+
+	/**
+	 * Parse the given locale-specific text into a number instance of the given
+	 * target class: grouping separators are ignored, and the decimal separator
+	 * and minus sign of the locale are accepted.
+	 * @param text the text to parse
+	 * @param targetClass the target Number class
+	 * @param locale the Locale to use, or null for plain parsing
+	 * @return the parsed number
+	 * @throws IllegalArgumentException if the target class is not supported,
+	 * or NumberFormatException if the text is not a valid number
+	 * @see #parseNumber(String, Class)
+	 */
+	public static Number parseNumber(String text, Class targetClass, Locale locale) throws IllegalArgumentException {
+		if (locale == null) {
+			return parseNumber(text, targetClass);
+		}
+		return parseNumber(getNumberSymbols(locale).normalize(text), targetClass);
+	}
+
+	private static NumberSymbols getNumberSymbols(Locale locale) {
+		NumberSymbols symbols = (NumberSymbols) symbolsCache.get(locale);
+		if (symbols == null) {
+			symbols = new NumberSymbols(DecimalFormatSymbols.getInstance(locale));
+			symbolsCache.put(locale, symbols);
+		}
+		return symbols;
+	}
+
+	private static boolean isHexNumber(String value) {
+		int index = (value.startsWith("-") ? 1 : 0);
+		return (value.startsWith("0x", index) || value.startsWith("0X", index) || value.startsWith("#", index));
+	}
+
+	private static BigInteger decodeBigInteger(String value) {
+		int index = 0;
+		boolean negative = false;
+		if (value.startsWith("-")) {
+			negative = true;
+			index++;
+		}
+		index += (value.startsWith("#", index) ? 1 : 2);
+		BigInteger result = new BigInteger(value.substring(index), 16);
+		return (negative ? result.negate() : result);
+	}
+
+
+	/**
+	 * Immutable table of the number symbols of a Locale.
+	 */
+	private static class NumberSymbols {
+
+		private final char groupingSeparator;
+
+		private final char decimalSeparator;
+
+		private final char minusSign;
+
+		private NumberSymbols(DecimalFormatSymbols symbols) {
+			this.groupingSeparator = symbols.getGroupingSeparator();
+			this.decimalSeparator = symbols.getDecimalSeparator();
+			this.minusSign = symbols.getMinusSign();
+		}
+
+		private boolean isGroupingSeparator(char c) {
+			// accept plain spaces for locales grouping with (non-breaking) space characters
+			return (c == this.groupingSeparator || (c == ' ' && Character.isSpaceChar(this.groupingSeparator)));
+		}
+
+		/**
+		 * Turn locale-specific text into plain text: without grouping separators,
+		 * with '.' as decimal separator and '-' as minus sign.
+		 * Returns the given text as-is if there is nothing to replace.
+		 */
+		private String normalize(String text) {
+			String trimmed = text.trim();
+			int length = trimmed.length();
+			int i = 0;
+			while (i < length) {
+				char c = trimmed.charAt(i);
+				if (isGroupingSeparator(c) || (c == this.decimalSeparator && c != '.') ||
+						(c == this.minusSign && c != '-')) {
+					break;
+				}
+				i++;
+			}
+			if (i == length) {
+				return trimmed;
+			}
+			StringBuffer buf = new StringBuffer(length);
+			buf.append(trimmed, 0, i);
+			for (; i < length; i++) {
+				char c = trimmed.charAt(i);
+				if (c == this.decimalSeparator) {
+					buf.append('.');
+				}
+				else if (c == this.minusSign) {
+					buf.append('-');
+				}
+				else if (!isGroupingSeparator(c)) {
+					buf.append(c);
+				}
+			}
+			return buf.toString();
+		}
+	}
+
+}
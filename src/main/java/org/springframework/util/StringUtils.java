@@ -117,29 +117,128 @@ public abstract class StringUtils {
 	}
 
 	/**
-	 * Tokenize the given String into a String array via a StringTokenizer.
+	 * Tokenize the given character sequence, handing each token to the given
+	 * handler as offsets, without creating Strings. Any of the given delimiter
+	 * characters separates tokens; like with a StringTokenizer, consecutive
+	 * delimiters do not produce empty tokens.
+	 * @param s the character sequence to tokenize
+	 * @param delimiters the delimiter characters, assembled as String
+	 * @param trimTokens exclude leading and trailing whitespace from the tokens,
+	 * as String.trim would remove
+	 * @param ignoreEmptyTokens omit tokens that are empty after trimming
+	 * @param handler the handler to receive the tokens, or null to count only
+	 * @return the number of tokens handed to the handler
+	 * @see #tokenizeToStringArray
+	 */
+	public static int tokenize(CharSequence s, String delimiters, boolean trimTokens,
+	                           boolean ignoreEmptyTokens, TokenHandler handler) {
+		int count = 0;
+		int length = s.length();
+		int pos = 0;
+		while (pos < length) {
+			while (pos < length && delimiters.indexOf(s.charAt(pos)) != -1) {
+				pos++;
+			}
+			if (pos == length) {
+				break;
+			}
+			int start = pos;
+			while (pos < length && delimiters.indexOf(s.charAt(pos)) == -1) {
+				pos++;
+			}
+			count += handleToken(s, start, pos, trimTokens, ignoreEmptyTokens, handler);
+		}
+		return count;
+	}
+
+	/**
+	 * Tokenize the given character sequence, which is a list delimited by the
+	 * given delimiter String, handing each token to the given handler as offsets,
+	 * without creating Strings. In contrast to tokenize, each delimiter
+	 * separates two tokens: consecutive delimiters produce empty tokens.
+	 * @param s the character sequence to tokenize
+	 * @param delim the delimiter between tokens, or null to hand over the
+	 * entire sequence as a single token
+	 * @param trimTokens exclude leading and trailing whitespace from the tokens,
+	 * as String.trim would remove
+	 * @param ignoreEmptyTokens omit tokens that are empty after trimming
+	 * @param handler the handler to receive the tokens, or null to count only
+	 * @return the number of tokens handed to the handler
+	 * @see #delimitedListToStringArray
+	 */
+	public static int tokenizeDelimitedList(CharSequence s, String delim, boolean trimTokens,
+	                                        boolean ignoreEmptyTokens, TokenHandler handler) {
+		int length = s.length();
+		if (delim == null || delim.length() == 0) {
+			return handleToken(s, 0, length, trimTokens, ignoreEmptyTokens, handler);
+		}
+		int count = 0;
+		int pos = 0;
+		int delPos;
+		while ((delPos = indexOf(s, delim, pos)) != -1) {
+			count += handleToken(s, pos, delPos, trimTokens, ignoreEmptyTokens, handler);
+			pos = delPos + delim.length();
+		}
+		// handle rest of sequence
+		return count + handleToken(s, pos, length, trimTokens, ignoreEmptyTokens, handler);
+	}
+
+	private static int handleToken(CharSequence s, int start, int end, boolean trimToken,
+	                               boolean ignoreEmptyToken, TokenHandler handler) {
+		if (trimToken) {
+			while (start < end && s.charAt(start) <= ' ') {
+				start++;
+			}
+			while (end > start && s.charAt(end - 1) <= ' ') {
+				end--;
+			}
+		}
+		if (ignoreEmptyToken && start == end) {
+			return 0;
+		}
+		if (handler != null) {
+			handler.handleToken(s, start, end);
+		}
+		return 1;
+	}
+
+	private static int indexOf(CharSequence s, String str, int fromIndex) {
+		if (s instanceof String) {
+			return ((String) s).indexOf(str, fromIndex);
+		}
+		int last = s.length() - str.length();
+		char first = str.charAt(0);
+		for (int i = fromIndex; i <= last; i++) {
+			if (s.charAt(i) == first) {
+				int j = 1;
+				while (j < str.length() && s.charAt(i + j) == str.charAt(j)) {
+					j++;
+				}
+				if (j == str.length()) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Tokenize the given String into a String array. Any of the given delimiter
+	 * characters separates tokens; like with a StringTokenizer, consecutive
+	 * delimiters do not produce empty tokens.
 	 * @param s the String to tokenize
 	 * @param delimiters the delimiter characters, assembled as String
 	 * @param trimTokens trim the tokens via String.trim
 	 * @param ignoreEmptyTokens omit empty tokens from the result array
 	 * @return an array of the tokens
-	 * @see StringTokenizer
+	 * @see #tokenize
 	 * @see String#trim
 	 */
 	public static String[] tokenizeToStringArray(String s, String delimiters,
 	                                             boolean trimTokens, boolean ignoreEmptyTokens) {
-		StringTokenizer st = new StringTokenizer(s, delimiters);
-		List tokens = new ArrayList();
-		while (st.hasMoreTokens()) {
-			String token = st.nextToken();
-			if (trimTokens) {
-				token = token.trim();
-			}
-			if (!(ignoreEmptyTokens && token.length() == 0)) {
-				tokens.add(token);
-			}
-		}
-		return (String[]) tokens.toArray(new String[tokens.size()]);
+		TokenCollector collector = new TokenCollector();
+		tokenize(s, delimiters, trimTokens, ignoreEmptyTokens, collector);
+		return collector.toArray();
 	}
 
 	/**
@@ -147,6 +246,7 @@ public abstract class StringUtils {
 	 * @param s String
 	 * @param delim delim (this will not be returned)
 	 * @return an array of the tokens in the list
+	 * @see #tokenizeDelimitedList
 	 */
 	public static String[] delimitedListToStringArray(String s, String delim) {
 		if (s == null) {
@@ -155,20 +255,9 @@ public abstract class StringUtils {
 		if (delim == null) {
 			return new String[]{s};
 		}
-
-		List l = new LinkedList();
-		int pos = 0;
-		int delPos = 0;
-		while ((delPos = s.indexOf(delim, pos)) != -1) {
-			l.add(s.substring(pos, delPos));
-			pos = delPos + delim.length();
-		}
-		if (pos <= s.length()) {
-			// add rest of String
-			l.add(s.substring(pos));
-		}
-
-		return (String[]) l.toArray(new String[l.size()]);
+		TokenCollector collector = new TokenCollector();
+		tokenizeDelimitedList(s, delim, false, false, collector);
+		return collector.toArray();
 	}
 
 	/**
@@ -187,10 +276,13 @@ public abstract class StringUtils {
 	 * @return a Set of String entries in the list
 	 */
 	public static Set commaDelimitedListToSet(String s) {
-		Set set = new TreeSet();
-		String[] tokens = commaDelimitedListToStringArray(s);
-		for (int i = 0; i < tokens.length; i++) {
-			set.add(tokens[i]);
+		final Set set = new TreeSet();
+		if (s != null) {
+			tokenizeDelimitedList(s, ",", false, false, new TokenHandler() {
+				public void handleToken(CharSequence source, int start, int end) {
+					set.add(source.subSequence(start, end).toString());
+				}
+			});
 		}
 		return set;
 	}
@@ -353,4 +445,21 @@ public abstract class StringUtils {
 		return buf.toString();
 	}
 
+
+	/**
+	 * TokenHandler that collects tokens as Strings, in a single pass.
+	 */
+	private static class TokenCollector implements TokenHandler {
+
+		private final List tokens = new ArrayList();
+
+		public void handleToken(CharSequence source, int start, int end) {
+			this.tokens.add(source.subSequence(start, end).toString());
+		}
+
+		private String[] toArray() {
+			return (String[]) this.tokens.toArray(new String[this.tokens.size()]);
+		}
+	}
+
 }
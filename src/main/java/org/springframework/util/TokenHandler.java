@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+/**
+ * Callback interface for the streaming tokenizer methods of StringUtils.
+ * Receives each token as offsets into the tokenized character sequence,
+ * so that no String needs to be created for tokens that the handler
+ * merely inspects or parses.
+ *
+ * @see StringUtils#tokenize(CharSequence, String, boolean, boolean, TokenHandler)
+ * @see StringUtils#tokenizeDelimitedList(CharSequence, String, boolean, boolean, TokenHandler)
+ */
+public interface TokenHandler {
+
+	/**
+	 * Handle the token between the given offsets.
+	 * Use <code>source.subSequence(start, end)</code> for a view of the token,
+	 * or <code>source.subSequence(start, end).toString()</code> for a String.
+	 * @param source the character sequence being tokenized
+	 * @param start the offset of the first character of the token
+	 * @param end the offset after the last character of the token
+	 */
+	void handleToken(CharSequence source, int start, int end);
+
+}
@@ -0,0 +1,247 @@
+package org.springframework.beans.factory.support;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the creation of singletons by concurrent threads: singletons
+ * that refer to each other get created on different threads, with barriers
+ * making sure both creations are in progress before either looks up the other.
+ *
+ * @see AbstractBeanFactory#getBean(String)
+ */
+public class ConcurrentSingletonCreationTests {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private TestBeanFactory beanFactory;
+
+    @Before
+    public void setUp() {
+        this.beanFactory = new TestBeanFactory();
+    }
+
+    @Test
+    public void crossThreadCircularReferenceResolvedWithEarlyReferences() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        this.beanFactory.registerBeanDefinition("a", cyclicBeanDefinition(barrier, "b"));
+        this.beanFactory.registerBeanDefinition("b", cyclicBeanDefinition(barrier, "a"));
+
+        BeanLookup lookupA = new BeanLookup(this.beanFactory, "a");
+        BeanLookup lookupB = new BeanLookup(this.beanFactory, "b");
+        lookupA.start();
+        lookupB.start();
+        lookupA.finish();
+        lookupB.finish();
+
+        assertNull(lookupA.failure);
+        assertNull(lookupB.failure);
+        CyclicBean a = (CyclicBean) lookupA.bean;
+        CyclicBean b = (CyclicBean) lookupB.bean;
+        assertSame(b, a.getOther());
+        assertSame(a, b.getOther());
+        assertSame(a, this.beanFactory.getBean("a"));
+        assertSame(b, this.beanFactory.getBean("b"));
+    }
+
+    @Test
+    public void crossThreadCircularDependencyFailsInsteadOfDeadlocking() throws Exception {
+        MutablePropertyValues gatePvs = new MutablePropertyValues();
+        gatePvs.addPropertyValue("barrier", new CyclicBarrier(2));
+        this.beanFactory.registerBeanDefinition("gate", new RootBeanDefinition(Gate.class, gatePvs, false));
+        RootBeanDefinition bdA = new RootBeanDefinition(Object.class, new MutablePropertyValues());
+        bdA.setDependsOn(new String[] {"gate", "b"});
+        this.beanFactory.registerBeanDefinition("a", bdA);
+        RootBeanDefinition bdB = new RootBeanDefinition(Object.class, new MutablePropertyValues());
+        bdB.setDependsOn(new String[] {"gate", "a"});
+        this.beanFactory.registerBeanDefinition("b", bdB);
+
+        BeanLookup lookupA = new BeanLookup(this.beanFactory, "a");
+        BeanLookup lookupB = new BeanLookup(this.beanFactory, "b");
+        lookupA.start();
+        lookupB.start();
+        lookupA.finish();
+        lookupB.finish();
+
+        // the thread closing the cycle fails fast, and so does the one waiting for it
+        assertTrue(lookupA.failure instanceof BeanCurrentlyInCreationException);
+        assertTrue(lookupB.failure instanceof BeanCurrentlyInCreationException);
+        assertFalse(this.beanFactory.getCreatedBeanNames().contains("a"));
+        assertFalse(this.beanFactory.getCreatedBeanNames().contains("b"));
+    }
+
+    @Test
+    public void otherThreadsWaitForFullyInitializedSingleton() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("started", started);
+        pvs.addPropertyValue("release", release);
+        this.beanFactory.registerBeanDefinition("slow", new RootBeanDefinition(SlowBean.class, pvs));
+
+        BeanLookup creator = new BeanLookup(this.beanFactory, "slow");
+        creator.start();
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // exposed as early reference by now, but only to the creating thread
+        BeanLookup waiter = new BeanLookup(this.beanFactory, "slow");
+        waiter.start();
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+
+        release.countDown();
+        creator.finish();
+        waiter.finish();
+        assertNull(creator.failure);
+        assertNull(waiter.failure);
+        assertSame(creator.bean, waiter.bean);
+        assertTrue(((SlowBean) waiter.bean).isInitialized());
+        assertEquals(Collections.singletonList("slow"), this.beanFactory.getCreatedBeanNames());
+    }
+
+    private static RootBeanDefinition cyclicBeanDefinition(CyclicBarrier barrier, String otherName) {
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("barrier", barrier);
+        pvs.addPropertyValue("otherName", otherName);
+        return new RootBeanDefinition(CyclicBean.class, pvs);
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch (Exception ex) {
+            throw new IllegalStateException("Other thread did not arrive: " + ex);
+        }
+    }
+
+
+    /**
+     * Thread looking up a bean, keeping the bean or the failure.
+     */
+    private static class BeanLookup extends Thread {
+
+        private final BeanFactory beanFactory;
+
+        private final String beanName;
+
+        private volatile Object bean;
+
+        private volatile Throwable failure;
+
+        private BeanLookup(BeanFactory beanFactory, String beanName) {
+            super("lookup-" + beanName);
+            this.beanFactory = beanFactory;
+            this.beanName = beanName;
+            // a deadlocked lookup must not keep the test run from finishing
+            setDaemon(true);
+        }
+
+        public void run() {
+            try {
+                this.bean = this.beanFactory.getBean(this.beanName);
+            }
+            catch (Throwable ex) {
+                this.failure = ex;
+            }
+        }
+
+        private void finish() throws InterruptedException {
+            join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            assertFalse("Lookup of bean '" + this.beanName + "' deadlocked", isAlive());
+        }
+    }
+
+
+    /**
+     * Looks up another bean once initialized, after the creation of that bean
+     * on another thread has started.
+     */
+    public static class CyclicBean implements BeanFactoryAware {
+
+        private CyclicBarrier barrier;
+
+        private String otherName;
+
+        private Object other;
+
+        public void setBarrier(CyclicBarrier barrier) {
+            this.barrier = barrier;
+        }
+
+        public void setOtherName(String otherName) {
+            this.otherName = otherName;
+        }
+
+        public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+            await(this.barrier);
+            this.other = beanFactory.getBean(this.otherName);
+        }
+
+        public Object getOther() {
+            return other;
+        }
+    }
+
+
+    /**
+     * Prototype that blocks until another thread has created one as well.
+     */
+    public static class Gate {
+
+        public void setBarrier(CyclicBarrier barrier) {
+            await(barrier);
+        }
+    }
+
+
+    /**
+     * Blocks its initialization until released.
+     */
+    public static class SlowBean implements BeanFactoryAware {
+
+        private CountDownLatch started;
+
+        private CountDownLatch release;
+
+        private volatile boolean initialized;
+
+        public void setStarted(CountDownLatch started) {
+            this.started = started;
+        }
+
+        public void setRelease(CountDownLatch release) {
+            this.release = release;
+        }
+
+        public void setBeanFactory(BeanFactory beanFactory) {
+            this.started.countDown();
+            try {
+                this.initialized = this.release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public boolean isInitialized() {
+            return initialized;
+        }
+    }
+
+}
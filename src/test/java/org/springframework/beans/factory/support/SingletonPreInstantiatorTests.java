@@ -0,0 +1,211 @@
+package org.springframework.beans.factory.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the concurrent pre-instantiation of singletons, including
+ * executors that reject some or all of the scheduled creations.
+ *
+ * @see AbstractAutowireCapableBeanFactory#setPreInstantiationExecutor
+ */
+public class SingletonPreInstantiatorTests {
+
+    /** Fail rather than hang if a rejected creation never runs */
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private TestBeanFactory beanFactory;
+
+    private ExecutorService threadPool;
+
+    @Before
+    public void setUp() {
+        this.beanFactory = new TestBeanFactory();
+        this.threadPool = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        this.threadPool.shutdownNow();
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void threadPoolCreatesDependenciesFirst() {
+        registerDiamond();
+        this.beanFactory.setPreInstantiationExecutor(this.threadPool);
+        this.beanFactory.preInstantiateSingletons();
+
+        assertDiamondCreated();
+        assertNotSame(Thread.currentThread(), this.beanFactory.getCreatingThread("a"));
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void rejectingExecutorCreatesAllSingletonsOnCallingThread() {
+        registerDiamond();
+        this.beanFactory.setPreInstantiationExecutor(new RejectingExecutor(0));
+        this.beanFactory.preInstantiateSingletons();
+
+        assertDiamondCreated();
+        String[] beanNames = this.beanFactory.getBeanDefinitionNames();
+        for (int i = 0; i < beanNames.length; i++) {
+            assertSame(Thread.currentThread(), this.beanFactory.getCreatingThread(beanNames[i]));
+        }
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void partiallyRejectingExecutorCreatesRejectedSingletonsInline() {
+        registerDiamond();
+        RejectingExecutor executor = new RejectingExecutor(2);
+        this.beanFactory.setPreInstantiationExecutor(executor);
+        this.beanFactory.preInstantiateSingletons();
+
+        assertDiamondCreated();
+        assertTrue(executor.rejected.get() > 0);
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void failureOnThreadPoolPropagatesAndStopsDependents() {
+        registerFailingChain();
+        this.beanFactory.setPreInstantiationExecutor(this.threadPool);
+        assertPreInstantiationFails();
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void failureOfInlineCreationPropagatesAndStopsDependents() {
+        registerFailingChain();
+        this.beanFactory.setPreInstantiationExecutor(new RejectingExecutor(0));
+        assertPreInstantiationFails();
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void circularReferencesCreatedSequentiallyAfterOthers() {
+        this.beanFactory.registerBeanDefinition("a", referringBeanDefinition("b"));
+        this.beanFactory.registerBeanDefinition("b", referringBeanDefinition("a"));
+        this.beanFactory.registerBeanDefinition("c", new RootBeanDefinition(Object.class, new MutablePropertyValues()));
+        this.beanFactory.setPreInstantiationExecutor(this.threadPool);
+        this.beanFactory.preInstantiateSingletons();
+
+        assertEquals("c", this.beanFactory.getStartedBeanNames().get(0));
+        assertSame(Thread.currentThread(), this.beanFactory.getCreatingThread("a"));
+        ReferringBean a = (ReferringBean) this.beanFactory.getBean("a");
+        ReferringBean b = (ReferringBean) this.beanFactory.getBean("b");
+        assertSame(b, a.getOther());
+        assertSame(a, b.getOther());
+    }
+
+    /**
+     * Register a diamond: "b1" and "b2" depend on "a", "c" depends on both.
+     */
+    private void registerDiamond() {
+        this.beanFactory.registerBeanDefinition("c", dependentBeanDefinition(new String[] {"b1", "b2"}));
+        this.beanFactory.registerBeanDefinition("b1", dependentBeanDefinition(new String[] {"a"}));
+        this.beanFactory.registerBeanDefinition("b2", dependentBeanDefinition(new String[] {"a"}));
+        this.beanFactory.registerBeanDefinition("a", dependentBeanDefinition(null));
+    }
+
+    /**
+     * Assert that all beans got created, each only once all of its dependencies
+     * were done: "c" creating "b1" or "b2" itself would have started first.
+     */
+    private void assertDiamondCreated() {
+        assertEquals(4, this.beanFactory.getCreatedBeanNames().size());
+        List startedBeanNames = this.beanFactory.getStartedBeanNames();
+        assertEquals(4, startedBeanNames.size());
+        assertEquals("a", startedBeanNames.get(0));
+        assertEquals("c", startedBeanNames.get(3));
+    }
+
+    /**
+     * Register "failing" and "dependent", depending on it.
+     */
+    private void registerFailingChain() {
+        this.beanFactory.registerBeanDefinition("failing", new RootBeanDefinition(FailingBean.class, new MutablePropertyValues()));
+        this.beanFactory.registerBeanDefinition("dependent", dependentBeanDefinition(new String[] {"failing"}));
+    }
+
+    private void assertPreInstantiationFails() {
+        try {
+            this.beanFactory.preInstantiateSingletons();
+            fail("Should have thrown BeansException");
+        }
+        catch (BeansException ex) {
+            // expected
+        }
+        assertFalse(this.beanFactory.getStartedBeanNames().contains("dependent"));
+    }
+
+    private static RootBeanDefinition dependentBeanDefinition(String[] dependsOn) {
+        RootBeanDefinition bd = new RootBeanDefinition(Object.class, new MutablePropertyValues());
+        bd.setDependsOn(dependsOn);
+        return bd;
+    }
+
+    private static RootBeanDefinition referringBeanDefinition(String otherName) {
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("other", new RuntimeBeanReference(otherName));
+        return new RootBeanDefinition(ReferringBean.class, pvs);
+    }
+
+
+    /**
+     * Runs the given number of tasks on new threads, then rejects all others.
+     */
+    private static class RejectingExecutor implements Executor {
+
+        private final AtomicInteger accepted;
+
+        private final AtomicInteger rejected = new AtomicInteger();
+
+        private RejectingExecutor(int accepted) {
+            this.accepted = new AtomicInteger(accepted);
+        }
+
+        public void execute(Runnable task) {
+            if (this.accepted.getAndDecrement() <= 0) {
+                this.rejected.incrementAndGet();
+                throw new RejectedExecutionException("Saturated");
+            }
+            new Thread(task).start();
+        }
+    }
+
+
+    public static class ReferringBean {
+
+        private Object other;
+
+        public void setOther(Object other) {
+            this.other = other;
+        }
+
+        public Object getOther() {
+            return other;
+        }
+    }
+
+
+    public static class FailingBean {
+
+        public FailingBean() {
+            throw new IllegalStateException("Cannot create");
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.springframework.beans.factory.support;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal bean factory for tests, holding its bean definitions in a Map.
+ * Records the names of the beans it creates, in the order their creation
+ * started and finished, along with the threads that created them.
+ */
+class TestBeanFactory extends AbstractAutowireCapableBeanFactory {
+
+    private final Map beanDefinitions = new LinkedHashMap();
+
+    /** Names of the beans whose creation started, in that order */
+    private final List startedBeanNames = Collections.synchronizedList(new ArrayList());
+
+    /** Names of the created beans, in the order their creation finished */
+    private final List createdBeanNames = Collections.synchronizedList(new ArrayList());
+
+    /** Threads that created the beans, keyed by bean name */
+    private final Map creatingThreads = Collections.synchronizedMap(new HashMap());
+
+    public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+        this.beanDefinitions.put(beanName, beanDefinition);
+    }
+
+    public String[] getBeanDefinitionNames() {
+        return (String[]) this.beanDefinitions.keySet().toArray(new String[this.beanDefinitions.size()]);
+    }
+
+    public void preInstantiateSingletons() throws BeansException {
+        preInstantiateSingletons(getBeanDefinitionNames());
+    }
+
+    public List getStartedBeanNames() {
+        synchronized (this.startedBeanNames) {
+            return new ArrayList(this.startedBeanNames);
+        }
+    }
+
+    public List getCreatedBeanNames() {
+        synchronized (this.createdBeanNames) {
+            return new ArrayList(this.createdBeanNames);
+        }
+    }
+
+    public Thread getCreatingThread(String beanName) {
+        return (Thread) this.creatingThreads.get(beanName);
+    }
+
+    public boolean containsBeanDefinition(String beanName) {
+        return this.beanDefinitions.containsKey(beanName);
+    }
+
+    public BeanDefinition getBeanDefinition(String beanName) throws BeansException {
+        BeanDefinition bd = (BeanDefinition) this.beanDefinitions.get(beanName);
+        if (bd == null) {
+            throw new NoSuchBeanDefinitionException(beanName, "not registered");
+        }
+        return bd;
+    }
+
+    protected Object createBean(String beanName, RootBeanDefinition mergedBeanDefinition) throws BeansException {
+        this.startedBeanNames.add(beanName);
+        this.creatingThreads.put(beanName, Thread.currentThread());
+        Object bean = super.createBean(beanName, mergedBeanDefinition);
+        this.createdBeanNames.add(beanName);
+        return bean;
+    }
+
+    protected void destroyBean(String beanName, Object bean) {
+    }
+
+    protected Map findMatchingBeans(Class requiredType) throws BeansException {
+        Map matchingBeans = new HashMap();
+        for (Iterator it = this.beanDefinitions.keySet().iterator(); it.hasNext();) {
+            String beanName = (String) it.next();
+            if (requiredType.isAssignableFrom(getMergedBeanDefinition(beanName, false).getBeanClass())) {
+                matchingBeans.put(beanName, getBean(beanName));
+            }
+        }
+        return matchingBeans;
+    }
+
+    protected String[] getDependingBeanNames(String beanName) throws BeansException {
+        return null;
+    }
+
+}
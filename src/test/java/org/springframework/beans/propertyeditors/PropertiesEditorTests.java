@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.propertyeditors;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for PropertiesEditor: a table of the format's corner cases, and a
+ * comparison with Properties.load on generated text.
+ */
+public class PropertiesEditorTests {
+
+	@Test
+	public void keyValueSeparators() {
+		assertParsed("a=1\nb = 2\nc:3\nd 4\ne\t=\t5\nf  :  6", new String[] {
+				"a", "1", "b", "2", "c", "3", "d", "4", "e", "5", "f", "6"});
+	}
+
+	@Test
+	public void keysWithoutValues() {
+		assertParsed("a\nb=\nc:\n  d  ", new String[] {"a", "", "b", "", "c", "", "d", ""});
+	}
+
+	@Test
+	public void separatorsInValues() {
+		assertParsed("a==1\nb=:2\nc 3 = 4", new String[] {"a", "=1", "b", ":2", "c", "3 = 4"});
+	}
+
+	@Test
+	public void escapedSeparatorsInKeys() {
+		assertParsed("a\\=b=1\nc\\:d:2\ne\\ f 3\ng\\\\=4", new String[] {
+				"a=b", "1", "c:d", "2", "e f", "3", "g\\", "4"});
+	}
+
+	@Test
+	public void lineContinuations() {
+		assertParsed("a=1\\\n  2\\\n\t3\nb=4", new String[] {"a", "123", "b", "4"});
+	}
+
+	@Test
+	public void escapedBackslashDoesNotContinue() {
+		assertParsed("a=1\\\\\nb=2", new String[] {"a", "1\\", "b", "2"});
+	}
+
+	@Test
+	public void continuationOfLastLine() {
+		assertParsed("a=1\\", new String[] {"a", "1"});
+	}
+
+	@Test
+	public void lineTerminators() {
+		assertParsed("a=1\r\nb=2\rc=3\n\r\n\rd=4\r\n", new String[] {"a", "1", "b", "2", "c", "3", "d", "4"});
+	}
+
+	@Test
+	public void lineContinuationsWithCarriageReturns() {
+		assertParsed("a=1\\\r\n  2\\\r  3\r\nb=4", new String[] {"a", "123", "b", "4"});
+	}
+
+	@Test
+	public void commentLines() {
+		assertParsed("# comment\n! comment\n  # indented comment\na=1 # not a comment\n#b=2",
+				new String[] {"a", "1 # not a comment"});
+	}
+
+	@Test
+	public void commentLinesAreNotContinued() {
+		assertParsed("# comment \\\na=1\r\n! comment \\\r\nb=2", new String[] {"a", "1", "b", "2"});
+	}
+
+	@Test
+	public void escapes() {
+		assertParsed("a=\\t\\n\\r\\f\\x\\\\\nb=\\u0041\\u00e9", new String[] {"a", "\t\n\r\fx\\", "b", "A\u00e9"});
+	}
+
+	@Test
+	public void charactersOutsideOfLatin1() {
+		assertParsed("schl\u00fcssel=\u20ac\n\u952e=\u503c\n\u00e9\\u20ac=\u4e2d\\u6587",
+				new String[] {"schl\u00fcssel", "\u20ac", "\u952e", "\u503c", "\u00e9\u20ac", "\u4e2d\u6587"});
+	}
+
+	@Test
+	public void emptyText() {
+		assertParsed("", new String[0]);
+		assertParsed("\n\r\n  \n# comment", new String[0]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void malformedUnicodeEscape() {
+		new PropertiesEditor().setAsText("a=\\u00g1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void truncatedUnicodeEscape() {
+		new PropertiesEditor().setAsText("a=\\u00");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullText() {
+		new PropertiesEditor().setAsText(null);
+	}
+
+	/**
+	 * Compare with Properties.load on random text built from the characters
+	 * that matter to the format. Unlike Properties.load, the editor drops keys
+	 * starting with a comment marker, such as escaped or continued ones.
+	 * Continued lines never consist of the backslash alone: Properties.load
+	 * of JDK 9 and later treats their continuation as a new line, unlike
+	 * that of JDK 8, which the editor follows.
+	 */
+	@Test
+	public void sameAsPropertiesLoad() throws IOException {
+		String[] fragments = new String[] {
+				"a", "b", "key", " ", "\t", "\f", "=", ":", "a\\", "\\\\", "\n", "\r", "\r\n", "#", "!",
+				"\\u0041", "\\u00", "\\t", "\\n", "\\=", "\\ ", "\u00e9", "\u20ac", "\u4e2d"};
+		Random random = new Random(42);
+		StringBuffer text = new StringBuffer();
+		for (int i = 0; i < 20000; i++) {
+			text.setLength(0);
+			int length = random.nextInt(24);
+			for (int j = 0; j < length; j++) {
+				text.append(fragments[random.nextInt(fragments.length)]);
+			}
+			assertSameAsPropertiesLoad(text.toString());
+		}
+	}
+
+	private static void assertSameAsPropertiesLoad(String text) throws IOException {
+		Properties expected = new Properties();
+		try {
+			expected.load(new StringReader(text));
+		}
+		catch (IllegalArgumentException ex) {
+			try {
+				new PropertiesEditor().setAsText(text);
+				fail("Should have rejected [" + text + "] like Properties.load");
+			}
+			catch (IllegalArgumentException ex2) {
+				return;
+			}
+		}
+		for (Iterator it = expected.keySet().iterator(); it.hasNext();) {
+			String key = (String) it.next();
+			if (key.length() > 0 && PropertiesEditor.COMMENT_MARKERS.indexOf(key.charAt(0)) != -1) {
+				it.remove();
+			}
+		}
+		PropertiesEditor editor = new PropertiesEditor();
+		editor.setAsText(text);
+		assertEquals("Parsed [" + text + "]", expected, editor.getValue());
+	}
+
+	private static void assertParsed(String text, String[] keysAndValues) {
+		Properties expected = new Properties();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			expected.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		PropertiesEditor editor = new PropertiesEditor();
+		editor.setAsText(text);
+		assertEquals("Parsed [" + text + "]", expected, editor.getValue());
+	}
+
+}